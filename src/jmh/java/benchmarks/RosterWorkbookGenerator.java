@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Generates synthetic rosters in the layout read by ExcelService:
+ * ID, RegNo, Name, Branch with a header row.
+ */
+public final class RosterWorkbookGenerator {
+    private static final String[] BRANCHES = { "CSE", "ECE", "EEE", "MECH", "CIVIL", "IT", "AIDS", "AIML" };
+    private static final String[] FIRST_NAMES = { "Aarav", "Diya", "Ishaan", "Kavya", "Rohan", "Sneha", "Vikram",
+            "Ananya", "Arjun", "Meera" };
+    private static final String[] LAST_NAMES = { "Reddy", "Raju", "Varma", "Naidu", "Sharma", "Rao", "Kumar",
+            "Gupta" };
+
+    private RosterWorkbookGenerator() {
+    }
+
+    /**
+     * Return a roster of the given size, generating it on first use. Files are
+     * cached in the temp directory so repeated forks do not pay for generation.
+     */
+    public static File roster(int size) throws IOException {
+        File dir = new File(System.getProperty("java.io.tmpdir"), "student-team-bench");
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create benchmark directory: " + dir);
+        }
+        File file = new File(dir, "roster-" + size + ".xlsx");
+        if (!file.isFile()) {
+            File tmp = new File(dir, file.getName() + ".tmp");
+            write(tmp, size, 42L);
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Cannot move generated roster to " + file);
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Write a roster workbook with the given number of students
+     */
+    public static void write(File file, int size, long seed) throws IOException {
+        Random random = new Random(seed);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(100);
+        try {
+            Sheet sheet = workbook.createSheet("Students");
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("ID");
+            header.createCell(1).setCellValue("RegNo");
+            header.createCell(2).setCellValue("Name");
+            header.createCell(3).setCellValue("Branch");
+
+            for (int i = 1; i <= size; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue(i);
+                row.createCell(1).setCellValue(String.format("21B01A%05d", i));
+                row.createCell(2).setCellValue(FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                        + LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+                row.createCell(3).setCellValue(BRANCHES[random.nextInt(BRANCHES.length)]);
+            }
+
+            try (FileOutputStream fos = new FileOutputStream(file)) {
+                workbook.write(fos);
+            }
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        write(new File(args[0]), size, 42L);
+    }
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/**
+ * Bridge to the application classes, which live in the default package and
+ * therefore cannot be imported by the (packaged) JMH benchmarks. Method
+ * handles are resolved once, so per-call overhead is negligible next to the
+ * work being measured.
+ */
+final class TeamGeneratorApi {
+    private static final MethodHandle NEW_EXCEL_SERVICE;
+    private static final MethodHandle NEW_RANDOM_TEAMS_SERVICE;
+    private static final MethodHandle READ_STUDENTS;
+    private static final MethodHandle READ_STUDENTS_STREAMING;
+    private static final MethodHandle SPLIT_INTO_TEAMS;
+    private static final MethodHandle WRITE_TEAMS;
+    private static final MethodHandle WRITE_TEAMS_STREAMING;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> excelService = Class.forName("ExcelService");
+            Class<?> teamsService = Class.forName("RandomTeamsService");
+
+            NEW_EXCEL_SERVICE = lookup.findConstructor(excelService, MethodType.methodType(void.class));
+            NEW_RANDOM_TEAMS_SERVICE = lookup.findConstructor(teamsService, MethodType.methodType(void.class));
+
+            MethodType read = MethodType.methodType(List.class, String.class, String.class);
+            READ_STUDENTS = lookup.findVirtual(excelService, "readStudentsFromExcel", read);
+            READ_STUDENTS_STREAMING = lookup.findVirtual(excelService, "readStudentsFromExcelStreaming", read);
+
+            SPLIT_INTO_TEAMS = lookup.findVirtual(teamsService, "splitIntoTeams",
+                    MethodType.methodType(List.class, List.class, int.class));
+
+            MethodType write = MethodType.methodType(void.class, List.class, String.class);
+            WRITE_TEAMS = lookup.findVirtual(excelService, "writeTeamsToExcel", write);
+            WRITE_TEAMS_STREAMING = lookup.findVirtual(excelService, "writeTeamsToExcelStreaming", write);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private TeamGeneratorApi() {
+    }
+
+    static Object newExcelService() {
+        return create(NEW_EXCEL_SERVICE);
+    }
+
+    static Object newRandomTeamsService() {
+        return create(NEW_RANDOM_TEAMS_SERVICE);
+    }
+
+    static List<?> readStudents(Object excelService, String filePath, boolean streaming) {
+        try {
+            MethodHandle handle = streaming ? READ_STUDENTS_STREAMING : READ_STUDENTS;
+            return (List<?>) handle.invoke(excelService, filePath, (String) null);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    static List<?> splitIntoTeams(Object teamsService, List<?> students, int teamSize) {
+        try {
+            return (List<?>) SPLIT_INTO_TEAMS.invoke(teamsService, students, teamSize);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    static void writeTeams(Object excelService, List<?> teams, String outputFilePath, boolean streaming) {
+        try {
+            MethodHandle handle = streaming ? WRITE_TEAMS_STREAMING : WRITE_TEAMS;
+            handle.invoke(excelService, teams, outputFilePath);
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    private static Object create(MethodHandle constructor) {
+        try {
+            return constructor.invoke();
+        } catch (Throwable t) {
+            throw propagate(t);
+        }
+    }
+
+    private static RuntimeException propagate(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new IllegalStateException(t);
+    }
+}
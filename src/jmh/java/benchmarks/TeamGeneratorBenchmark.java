@@ -0,0 +1,102 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for each phase of team generation (read, split, write) and for
+ * an end-to-end run of all three, as StudentTeamGenerator does by default.
+ * The end-to-end run calls the phases directly rather than through
+ * processStudentTeams, which reports errors instead of throwing them, so a
+ * failing run cannot be timed as a fast success.
+ *
+ * Run with the GC profiler to get allocation rates:
+ * java -jar target/benchmarks.jar TeamGeneratorBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g" })
+@State(Scope.Benchmark)
+public class TeamGeneratorBenchmark {
+
+    @Param({ "1000", "10000", "100000", "1000000" })
+    public int rosterSize;
+
+    @Param({ "10" })
+    public int teamSize;
+
+    private Object excelService;
+    private Object teamsService;
+    private String inputFile;
+    private String outputFile;
+    private List<?> students;
+    private List<?> teams;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        excelService = TeamGeneratorApi.newExcelService();
+        teamsService = TeamGeneratorApi.newRandomTeamsService();
+
+        inputFile = RosterWorkbookGenerator.roster(rosterSize).getPath();
+        File output = File.createTempFile("teams-" + rosterSize + "-", ".xlsx");
+        outputFile = output.getPath();
+
+        students = TeamGeneratorApi.readStudents(excelService, inputFile, true);
+        teams = TeamGeneratorApi.splitIntoTeams(teamsService, students, teamSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        new File(outputFile).delete();
+    }
+
+    @Benchmark
+    public List<?> read() {
+        return TeamGeneratorApi.readStudents(excelService, inputFile, false);
+    }
+
+    @Benchmark
+    public List<?> readStreaming() {
+        return TeamGeneratorApi.readStudents(excelService, inputFile, true);
+    }
+
+    @Benchmark
+    public List<?> splitIntoTeams() {
+        return TeamGeneratorApi.splitIntoTeams(teamsService, students, teamSize);
+    }
+
+    @Benchmark
+    public void write() {
+        TeamGeneratorApi.writeTeams(excelService, teams, outputFile, false);
+    }
+
+    @Benchmark
+    public void writeStreaming() {
+        TeamGeneratorApi.writeTeams(excelService, teams, outputFile, true);
+    }
+
+    @Benchmark
+    public void endToEnd() {
+        List<?> roster = TeamGeneratorApi.readStudents(excelService, inputFile, false);
+        List<?> split = TeamGeneratorApi.splitIntoTeams(teamsService, roster, teamSize);
+        TeamGeneratorApi.writeTeams(excelService, split, outputFile, false);
+    }
+}
@@ -0,0 +1,170 @@
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * CompletableFuture for one blocking operation run on an executor, used by
+ * the async variants of ExcelService and ITeamsService.
+ *
+ * Plain CompletableFuture.cancel only completes the future; the work keeps
+ * running. Cancelling an AsyncTask also interrupts the thread running it
+ * (with mayInterruptIfRunning), and the body can poll checkCancelled or wrap
+ * its row consumer or team iterator so reads and writes stop at the next row
+ * or team. A task cancelled before it starts never runs.
+ *
+ * Blocking workbook I/O runs on ioExecutor() by default: a shared, growable
+ * pool of daemon threads, so waiting on disk never ties up the common
+ * fork-join pool.
+ */
+public class AsyncTask<T> extends CompletableFuture<T> {
+
+    /**
+     * Work run by the task; it may throw checked exceptions, which complete
+     * the task exceptionally
+     */
+    public interface Body<T> {
+        T run(AsyncTask<T> task) throws Exception;
+    }
+
+    private Thread runner;
+    // Set when cancel interrupted the runner, guarded by this
+    private boolean interruptedByCancel;
+
+    /**
+     * Start body on the executor
+     *
+     * @return Task completing with the body's result or failure
+     */
+    public static <T> AsyncTask<T> submit(Executor executor, Body<T> body) {
+        AsyncTask<T> task = new AsyncTask<>();
+        try {
+            executor.execute(() -> task.run(body));
+        } catch (RejectedExecutionException e) {
+            task.completeExceptionally(e);
+        }
+        return task;
+    }
+
+    /**
+     * @return Shared pool of daemon threads for blocking I/O
+     */
+    public static Executor ioExecutor() {
+        return IoPool.EXECUTOR;
+    }
+
+    private void run(Body<T> body) {
+        synchronized (this) {
+            if (isDone()) {
+                return; // cancelled before it started
+            }
+            runner = Thread.currentThread();
+        }
+        try {
+            complete(body.run(this));
+        } catch (Throwable t) {
+            completeExceptionally(t);
+        } finally {
+            synchronized (this) {
+                runner = null;
+                // Do not leak our cancellation interrupt to the pool's next
+                // task; any other interrupt (e.g. shutdownNow) is left set
+                if (interruptedByCancel) {
+                    Thread.interrupted();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled && mayInterruptIfRunning) {
+            synchronized (this) {
+                if (runner != null) {
+                    interruptedByCancel = true;
+                    runner.interrupt();
+                }
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * @throws CancellationException If the task has been cancelled
+     */
+    public void checkCancelled() {
+        if (isCancelled()) {
+            throw new CancellationException("Task cancelled");
+        }
+    }
+
+    /**
+     * @return Consumer that checks for cancellation before passing each item on
+     */
+    public <E> Consumer<E> watch(Consumer<E> consumer) {
+        return item -> {
+            checkCancelled();
+            consumer.accept(item);
+        };
+    }
+
+    /**
+     * @return Iterator that checks for cancellation before each item
+     */
+    public <E> Iterator<E> watch(Iterator<E> iterator) {
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                checkCancelled();
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return iterator.next();
+            }
+        };
+    }
+
+    /**
+     * @return Read-only list view that checks for cancellation on each access
+     */
+    public <E> List<E> watch(List<E> list) {
+        return new AbstractList<E>() {
+            @Override
+            public E get(int index) {
+                checkCancelled();
+                return list.get(index);
+            }
+
+            @Override
+            public int size() {
+                return list.size();
+            }
+        };
+    }
+
+    /**
+     * Lazily created I/O pool
+     */
+    private static class IoPool {
+        private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "async-io-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,404 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Team service that optimizes the department and color balance of teams.
+ *
+ * Each restart starts from a random split and runs simulated annealing over
+ * swaps of two students in different teams. The cost is the squared
+ * deviation of every team's attribute counts from its proportional share,
+ * summed over teams and attribute values; a swap touches four counts per
+ * attribute, so its cost change is computed in O(1). Restarts run in
+ * parallel on all cores within a wall-clock budget and the best result wins.
+ */
+public class BalancedTeamsOptimizerService implements ITeamsService {
+    private static final Logger logger = LoggerFactory.getLogger(BalancedTeamsOptimizerService.class);
+    private static final int DEFAULT_TEAM_SIZE = 10;
+    private static final long DEFAULT_TIME_BUDGET_MILLIS = 2000;
+    private static final double INITIAL_TEMPERATURE = 2.0;
+    private static final double FINAL_TEMPERATURE = 0.01;
+    // Swaps between clock checks
+    private static final int CHECK_INTERVAL = 4096;
+
+    private final long timeBudgetMillis;
+    private final int restarts;
+    private final int threads;
+
+    // Fixed seed for the restarts, null for a fresh seed per call
+    private Long seed;
+
+    public BalancedTeamsOptimizerService() {
+        this(DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    public BalancedTeamsOptimizerService(long timeBudgetMillis) {
+        this(timeBudgetMillis, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param timeBudgetMillis Wall-clock budget for all restarts together
+     * @param restarts         Number of independent restarts
+     */
+    public BalancedTeamsOptimizerService(long timeBudgetMillis, int restarts) {
+        this.timeBudgetMillis = Math.max(1, timeBudgetMillis);
+        this.restarts = Math.max(1, restarts);
+        this.threads = Math.min(this.restarts, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Fix the seed of the restarts' random starts and moves. The search is
+     * still cut off by the time budget, so results repeat only when the
+     * restarts complete the same number of swaps.
+     */
+    @Override
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    /**
+     * Split students into balanced teams of the specified size
+     *
+     * @param students List of all students
+     * @param teamSize Size of each team (default: 10)
+     * @return List of teams, each containing a list of students
+     */
+    @Override
+    public List<List<Student>> splitIntoTeams(List<Student> students, int teamSize) {
+        if (students == null || students.isEmpty()) {
+            logger.warn("No students provided for team creation");
+            return new ArrayList<>();
+        }
+
+        if (teamSize <= 0) {
+            teamSize = DEFAULT_TEAM_SIZE;
+        }
+
+        Problem problem = new Problem(students, teamSize);
+
+        // Restarts beyond the thread count run in waves, each with its share of the budget
+        int waves = (restarts + threads - 1) / threads;
+        long sliceMillis = Math.max(1, timeBudgetMillis / waves);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Solution best = null;
+        try {
+            List<Future<Solution>> futures = new ArrayList<>(restarts);
+            SplittableRandom seeds = seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+            for (int r = 0; r < restarts; r++) {
+                SplittableRandom random = seeds.split();
+                futures.add(executor.submit(() -> problem.anneal(random, sliceMillis)));
+            }
+            for (Future<Solution> future : futures) {
+                Solution solution = future.get();
+                if (best == null || solution.cost < best.cost) {
+                    best = solution;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Team optimization interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Team optimization failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<List<Student>> teams = new ArrayList<>(problem.teamCount);
+        for (int t = 0; t < problem.teamCount; t++) {
+            teams.add(new ArrayList<>(problem.teamSizes[t]));
+        }
+        for (int i = 0; i < students.size(); i++) {
+            int teamNo = best.teamOf[i];
+            Student student = students.get(i);
+            student.setTeam("Team_" + teamNo);
+            teams.get(teamNo).add(student);
+        }
+
+        logger.info("Created {} balanced teams from {} students (team size: {}, {} restarts, best cost {})",
+                teams.size(), students.size(), teamSize, restarts, String.format("%.2f", best.cost));
+
+        return teams;
+    }
+
+    /**
+     * Split students into teams of default size (10)
+     *
+     * @param students List of all students
+     * @return List of teams, each containing a list of students
+     */
+    @Override
+    public List<List<Student>> splitIntoTeams(List<Student> students) {
+        return splitIntoTeams(students, DEFAULT_TEAM_SIZE);
+    }
+
+    /**
+     * Get statistics about team sizes and balance cost
+     *
+     * @param teams List of teams
+     * @return Team statistics as a formatted string
+     */
+    @Override
+    public String getTeamStatistics(List<List<Student>> teams) {
+        if (teams.isEmpty()) {
+            return "No teams created";
+        }
+
+        List<Student> students = new ArrayList<>();
+        int minTeamSize = Integer.MAX_VALUE;
+        int maxTeamSize = 0;
+        for (List<Student> team : teams) {
+            students.addAll(team);
+            minTeamSize = Math.min(minTeamSize, team.size());
+            maxTeamSize = Math.max(maxTeamSize, team.size());
+        }
+        int[] teamOf = new int[students.size()];
+        int[] teamSizes = new int[teams.size()];
+        int k = 0;
+        for (int t = 0; t < teams.size(); t++) {
+            teamSizes[t] = teams.get(t).size();
+            for (int i = 0; i < teams.get(t).size(); i++) {
+                teamOf[k++] = t;
+            }
+        }
+        Problem problem = new Problem(students, teamSizes);
+
+        return String.format(
+                "Team Statistics:\n" +
+                        "- Total Teams: %d\n" +
+                        "- Total Students: %d\n" +
+                        "- Min Team Size: %d\n" +
+                        "- Max Team Size: %d\n" +
+                        "- Average Team Size: %.2f\n" +
+                        "- Balance Cost: %.2f",
+                teams.size(), students.size(), minTeamSize, maxTeamSize, (double) students.size() / teams.size(),
+                problem.cost(problem.countsFor(teamOf)));
+    }
+
+    /**
+     * Encoded attributes and team shapes shared by all restarts
+     */
+    static class Problem {
+        private final int n;
+        private final int teamCount;
+        private final int[] teamSizes;
+        // codes[a][i]: value of attribute a for student i; values[a]: distinct values
+        private final int[][] codes;
+        private final int[] values;
+        // expected[a][t * values[a] + v]: proportional share of value v in team t
+        private final double[][] expected;
+
+        Problem(List<Student> students, int teamSize) {
+            this(students, chunkSizes(students.size(), teamSize));
+        }
+
+        Problem(List<Student> students, int[] teamSizes) {
+            this.n = students.size();
+            this.teamCount = teamSizes.length;
+            this.teamSizes = teamSizes;
+
+            List<Function<Student, String>> attributes = new ArrayList<>();
+            attributes.add(Student::getDept);
+            attributes.add(Student::getColor);
+            codes = new int[attributes.size()][];
+            values = new int[attributes.size()];
+            expected = new double[attributes.size()][];
+
+            for (int a = 0; a < attributes.size(); a++) {
+                Map<String, Integer> dictionary = new HashMap<>();
+                int[] column = new int[n];
+                for (int i = 0; i < n; i++) {
+                    String value = attributes.get(a).apply(students.get(i));
+                    Integer code = dictionary.get(value != null ? value : "");
+                    if (code == null) {
+                        code = dictionary.size();
+                        dictionary.put(value != null ? value : "", code);
+                    }
+                    column[i] = code;
+                }
+                codes[a] = column;
+                values[a] = dictionary.size();
+
+                int[] totals = new int[values[a]];
+                for (int i = 0; i < n; i++) {
+                    totals[column[i]]++;
+                }
+                double[] share = new double[teamCount * values[a]];
+                for (int t = 0; t < teamCount; t++) {
+                    for (int v = 0; v < values[a]; v++) {
+                        share[t * values[a] + v] = (double) totals[v] * teamSizes[t] / n;
+                    }
+                }
+                expected[a] = share;
+            }
+        }
+
+        private static int[] chunkSizes(int n, int teamSize) {
+            int teamCount = (n + teamSize - 1) / teamSize;
+            int[] sizes = new int[teamCount];
+            for (int t = 0; t < teamCount; t++) {
+                sizes[t] = Math.min(teamSize, n - t * teamSize);
+            }
+            return sizes;
+        }
+
+        int[][] countsFor(int[] teamOf) {
+            int[][] counts = new int[codes.length][];
+            for (int a = 0; a < codes.length; a++) {
+                counts[a] = new int[teamCount * values[a]];
+                for (int i = 0; i < n; i++) {
+                    counts[a][teamOf[i] * values[a] + codes[a][i]]++;
+                }
+            }
+            return counts;
+        }
+
+        double cost(int[][] counts) {
+            double cost = 0;
+            for (int a = 0; a < codes.length; a++) {
+                for (int c = 0; c < counts[a].length; c++) {
+                    double d = counts[a][c] - expected[a][c];
+                    cost += d * d;
+                }
+            }
+            return cost;
+        }
+
+        /**
+         * Cost change of swapping students i and j (in different teams)
+         */
+        double swapDelta(int[][] counts, int[] teamOf, int i, int j) {
+            int teamA = teamOf[i];
+            int teamB = teamOf[j];
+            double delta = 0;
+            for (int a = 0; a < codes.length; a++) {
+                int x = codes[a][i];
+                int y = codes[a][j];
+                if (x == y) {
+                    continue;
+                }
+                int stride = values[a];
+                int[] c = counts[a];
+                double[] e = expected[a];
+                int ax = teamA * stride + x;
+                int ay = teamA * stride + y;
+                int by = teamB * stride + y;
+                int bx = teamB * stride + x;
+                // (c + d - e)^2 - (c - e)^2 = 2d(c - e) + 1 for d = +/-1
+                delta += 4 - 2 * (c[ax] - e[ax]) + 2 * (c[ay] - e[ay]) - 2 * (c[by] - e[by]) + 2 * (c[bx] - e[bx]);
+            }
+            return delta;
+        }
+
+        void applySwap(int[][] counts, int[] teamOf, int i, int j) {
+            int teamA = teamOf[i];
+            int teamB = teamOf[j];
+            for (int a = 0; a < codes.length; a++) {
+                int x = codes[a][i];
+                int y = codes[a][j];
+                if (x == y) {
+                    continue;
+                }
+                int stride = values[a];
+                counts[a][teamA * stride + x]--;
+                counts[a][teamA * stride + y]++;
+                counts[a][teamB * stride + y]--;
+                counts[a][teamB * stride + x]++;
+            }
+            teamOf[i] = teamB;
+            teamOf[j] = teamA;
+        }
+
+        /**
+         * One restart: random start, then annealing until the deadline
+         */
+        Solution anneal(SplittableRandom random, long budgetMillis) {
+            // Random start: shuffle indexes and cut into the fixed team sizes
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = order[i];
+                order[i] = order[j];
+                order[j] = tmp;
+            }
+            int[] teamOf = new int[n];
+            int k = 0;
+            for (int t = 0; t < teamCount; t++) {
+                for (int s = 0; s < teamSizes[t]; s++) {
+                    teamOf[order[k++]] = t;
+                }
+            }
+
+            int[][] counts = countsFor(teamOf);
+            double cost = cost(counts);
+            double bestCost = cost;
+            int[] bestTeamOf = teamOf.clone();
+            if (teamCount < 2) {
+                return new Solution(bestTeamOf, bestCost);
+            }
+
+            long start = System.nanoTime();
+            long budgetNanos = budgetMillis * 1_000_000L;
+            double temperature = INITIAL_TEMPERATURE;
+            long iterations = 0;
+            while (true) {
+                if ((++iterations % CHECK_INTERVAL) == 0) {
+                    // Snapshot the best state at most once per interval to keep swaps O(1)
+                    if (cost < bestCost - 1e-9) {
+                        bestCost = cost;
+                        System.arraycopy(teamOf, 0, bestTeamOf, 0, n);
+                    }
+                    long elapsed = System.nanoTime() - start;
+                    if (elapsed >= budgetNanos || bestCost < 1e-9) {
+                        break;
+                    }
+                    // Geometric cooling over the budget
+                    double progress = (double) elapsed / budgetNanos;
+                    temperature = INITIAL_TEMPERATURE * Math.pow(FINAL_TEMPERATURE / INITIAL_TEMPERATURE, progress);
+                }
+
+                int i = random.nextInt(n);
+                int j = random.nextInt(n);
+                if (teamOf[i] == teamOf[j]) {
+                    continue;
+                }
+                double delta = swapDelta(counts, teamOf, i, j);
+                if (delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature)) {
+                    applySwap(counts, teamOf, i, j);
+                    cost += delta;
+                }
+            }
+            if (cost < bestCost) {
+                return new Solution(teamOf, cost);
+            }
+            return new Solution(bestTeamOf, bestCost);
+        }
+    }
+
+    private static class Solution {
+        private final int[] teamOf;
+        private final double cost;
+
+        Solution(int[] teamOf, double cost) {
+            this.teamOf = teamOf;
+            this.cost = cost;
+        }
+    }
+}
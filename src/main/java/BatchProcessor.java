@@ -0,0 +1,337 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the read, split and write pipeline for many rosters concurrently in a
+ * single JVM, so POI class loading and JIT warmup are paid once per batch.
+ *
+ * Jobs come from a directory (every .xlsx, .csv and .tsv roster in it, first
+ * sheet) or a manifest file with one job per line: input[,sheetName[,output]].
+ * Blank lines and lines starting with '#' are ignored. Jobs without an
+ * explicit output write to <input>[-<sheet>]-teams.xlsx in the output
+ * directory, numbered when two inputs share a name. A directory scan skips
+ * *-teams.xlsx files and the batch's own outputs, so earlier results are not
+ * read as rosters.
+ */
+public class BatchProcessor {
+    private static final Logger logger = LoggerFactory.getLogger(BatchProcessor.class);
+
+    private final StudentTeamGenerator generator;
+    private final int maxConcurrentJobs;
+
+    public BatchProcessor(StudentTeamGenerator generator, int maxConcurrentJobs) {
+        this.generator = generator;
+        this.maxConcurrentJobs = Math.max(1, maxConcurrentJobs);
+    }
+
+    /**
+     * Build the job list from a directory or a manifest file
+     *
+     * @param source    Directory of workbooks or manifest file
+     * @param outputDir Directory for generated team workbooks
+     * @param teamSize  Team size for every job
+     * @return Jobs in source order
+     * @throws IOException If the source cannot be read
+     */
+    public List<Job> loadJobs(String source, String outputDir, int teamSize) throws IOException {
+        File sourceFile = new File(source);
+        File outDir = new File(outputDir);
+        if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new IOException("Cannot create output directory: " + outputDir);
+        }
+
+        // Entries as {input, sheetName, output}; output is null until derived
+        List<String[]> entries = new ArrayList<>();
+        boolean scanned = sourceFile.isDirectory();
+        if (scanned) {
+            if (sourceFile.getCanonicalFile().equals(outDir.getCanonicalFile())) {
+                throw new IOException("Output directory must differ from the roster directory: " + outputDir);
+            }
+            File[] files = sourceFile.listFiles((dir, name) -> isRosterFile(name));
+            if (files != null) {
+                Arrays.sort(files);
+                for (File file : files) {
+                    entries.add(new String[] { file.getPath(), null, null });
+                }
+            }
+        } else {
+            try (BufferedReader reader = Files.newBufferedReader(sourceFile.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] parts = line.split(",", -1);
+                    String input = parts[0].trim();
+                    String sheetName = parts.length > 1 && !parts[1].trim().isEmpty() ? parts[1].trim() : null;
+                    String output = parts.length > 2 && !parts[2].trim().isEmpty() ? parts[2].trim() : null;
+                    entries.add(new String[] { input, sheetName, output });
+                }
+            }
+        }
+
+        // Jobs run concurrently, so no two may write the same file. Explicit
+        // outputs must be distinct; derived names get a numeric suffix instead.
+        Set<String> taken = new HashSet<>();
+        for (String[] entry : entries) {
+            if (entry[2] != null && !taken.add(outputKey(entry[2]))) {
+                throw new IOException("More than one batch job writes to " + entry[2]);
+            }
+        }
+        List<Job> jobs = new ArrayList<>(entries.size());
+        for (String[] entry : entries) {
+            String output = entry[2] != null ? entry[2] : outputFor(outDir, new File(entry[0]), entry[1], taken);
+            jobs.add(new Job(entry[0], entry[1], output, teamSize));
+        }
+
+        // No job may read a file another job is writing
+        List<Job> runnable = new ArrayList<>(jobs.size());
+        for (Job job : jobs) {
+            if (!taken.contains(outputKey(job.getInputFile()))) {
+                runnable.add(job);
+            } else if (scanned) {
+                logger.info("Skipping batch output {} in the roster directory", job.getInputFile());
+            } else {
+                throw new IOException("Batch job input is also a batch output: " + job.getInputFile());
+            }
+        }
+        jobs = runnable;
+
+        logger.info("Loaded {} batch jobs from {}", jobs.size(), source);
+        return jobs;
+    }
+
+    /**
+     * Run all jobs, at most maxConcurrentJobs at a time. A failing job does not
+     * stop the others.
+     *
+     * @param jobs Jobs to run
+     * @return One result per job, in job order
+     * @throws IllegalArgumentException If the generator is set to a mode batch
+     *                                  jobs cannot honour
+     */
+    public List<Result> run(List<Job> jobs) {
+        generator.checkBatchModes();
+        Semaphore permits = new Semaphore(maxConcurrentJobs);
+        ExecutorService executor = newExecutor();
+        List<Future<Result>> futures = new ArrayList<>(jobs.size());
+        try {
+            for (Job job : jobs) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return runJob(job);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            List<Result> results = new ArrayList<>(jobs.size());
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(Result.failed(jobs.get(i), 0, e.getCause()));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    results.add(Result.failed(jobs.get(i), 0, e));
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result runJob(Job job) {
+        long start = System.nanoTime();
+        try {
+            List<Student> students;
+            try (PhaseMetrics.Timer timer = generator.getMetrics().start("read")) {
+                students = generator.readStudents(job.getInputFile(), job.getSheetName());
+                timer.setRows(students.size());
+            }
+            List<List<Student>> teams = generator.splitIntoTeams(students, job.getTeamSize());
+            generator.writeTeams(teams, job.getInputFile(), job.getSheetName(), job.getOutputFile());
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Batch job {} finished in {} ms", job.getInputFile(), millis);
+            return new Result(job, students.size(), teams.size(), millis, null);
+        } catch (Exception e) {
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            logger.error("Batch job {} failed: {}", job.getInputFile(), e.getMessage(), e);
+            return Result.failed(job, millis, e);
+        }
+    }
+
+    /**
+     * Use a virtual-thread-per-task executor when the JDK has one (the permits
+     * bound concurrency), otherwise a fixed pool of platform threads
+     */
+    private ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(maxConcurrentJobs);
+        }
+    }
+
+    /**
+     * @return Whether a directory entry is a roster to process: an .xlsx,
+     *         .csv or .tsv file that is neither an Excel lock file nor team
+     *         output
+     */
+    private static boolean isRosterFile(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("~$") || lower.endsWith("-teams.xlsx")) {
+            return false;
+        }
+        return lower.endsWith(".xlsx") || DelimitedRosterReader.isDelimitedFile(name);
+    }
+
+    /**
+     * Derive an output name from the input name and sheet that no other job
+     * uses, e.g. roster-teams.xlsx, then roster-2-teams.xlsx for a second
+     * roster.xlsx from another directory
+     */
+    private static String outputFor(File outDir, File input, String sheetName, Set<String> taken)
+            throws IOException {
+        String base = input.getName().replaceFirst("\\.[^.]*$", "");
+        String suffix = sheetName != null ? "-" + sheetName.replaceAll("[^A-Za-z0-9_-]", "_") : "";
+        String output = new File(outDir, base + suffix + "-teams.xlsx").getPath();
+        for (int n = 2; !taken.add(outputKey(output)); n++) {
+            output = new File(outDir, base + suffix + "-" + n + "-teams.xlsx").getPath();
+        }
+        return output;
+    }
+
+    private static String outputKey(String output) throws IOException {
+        return new File(output).getCanonicalPath();
+    }
+
+    /**
+     * Format a per-job summary table
+     */
+    public static String summarize(List<Result> results) {
+        StringBuilder sb = new StringBuilder("Batch Summary:\n");
+        int failed = 0;
+        long totalMillis = 0;
+        for (Result result : results) {
+            Job job = result.getJob();
+            String sheet = job.getSheetName() != null ? job.getSheetName() : "first sheet";
+            if (result.isSuccess()) {
+                sb.append(String.format("- OK   %s [%s]: %d students, %d teams in %d ms -> %s%n",
+                        job.getInputFile(), sheet, result.getStudentCount(), result.getTeamCount(),
+                        result.getMillis(), job.getOutputFile()));
+            } else {
+                failed++;
+                sb.append(String.format("- FAIL %s [%s] after %d ms: %s%n",
+                        job.getInputFile(), sheet, result.getMillis(), result.getError()));
+            }
+            totalMillis += result.getMillis();
+        }
+        sb.append(String.format("- Jobs: %d, Failed: %d, Total job time: %d ms",
+                results.size(), failed, totalMillis));
+        return sb.toString();
+    }
+
+    /**
+     * One roster to process
+     */
+    public static class Job {
+        private final String inputFile;
+        private final String sheetName;
+        private final String outputFile;
+        private final int teamSize;
+
+        public Job(String inputFile, String sheetName, String outputFile, int teamSize) {
+            this.inputFile = inputFile;
+            this.sheetName = sheetName;
+            this.outputFile = outputFile;
+            this.teamSize = teamSize;
+        }
+
+        public String getInputFile() {
+            return inputFile;
+        }
+
+        public String getSheetName() {
+            return sheetName;
+        }
+
+        public String getOutputFile() {
+            return outputFile;
+        }
+
+        public int getTeamSize() {
+            return teamSize;
+        }
+    }
+
+    /**
+     * Outcome and timing of one job
+     */
+    public static class Result {
+        private final Job job;
+        private final int studentCount;
+        private final int teamCount;
+        private final long millis;
+        private final String error;
+
+        Result(Job job, int studentCount, int teamCount, long millis, String error) {
+            this.job = job;
+            this.studentCount = studentCount;
+            this.teamCount = teamCount;
+            this.millis = millis;
+            this.error = error;
+        }
+
+        static Result failed(Job job, long millis, Throwable cause) {
+            return new Result(job, 0, 0, millis, cause.getClass().getSimpleName() + ": " + cause.getMessage());
+        }
+
+        public Job getJob() {
+            return job;
+        }
+
+        public int getStudentCount() {
+            return studentCount;
+        }
+
+        public int getTeamCount() {
+            return teamCount;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
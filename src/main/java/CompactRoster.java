@@ -0,0 +1,337 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented roster that stores students as parallel arrays instead of
+ * one Student object each. Departments and colors are dictionary-encoded to
+ * int codes, and teams are int ranges over a permutation of student indexes,
+ * so repeated dept/team strings are stored once. Extra attributes are kept
+ * per student by attribute-name code, only for students that have any.
+ *
+ * List&lt;Student&gt; views are available for code that works with Student
+ * objects; they create a Student per access and do not write back.
+ */
+public class CompactRoster {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_CODE = -1;
+
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] regIds = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] deptCodes = new int[INITIAL_CAPACITY];
+    private int[] colorCodes = new int[INITIAL_CAPACITY];
+    // Attribute values by name code; a null row means no attributes
+    private String[][] attributes = new String[INITIAL_CAPACITY][];
+    private int size;
+
+    private final Dictionary depts = new Dictionary();
+    private final Dictionary colors = new Dictionary();
+    private final Dictionary attributeNames = new Dictionary();
+
+    // Team assignment: students order[teamOffsets[t] .. teamOffsets[t + 1]) form team t
+    private int[] order;
+    private int[] teamOffsets;
+    private int[] teamOf;
+
+    /**
+     * Append a student
+     */
+    public void add(String id, String regId, String name, String dept, String color) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            regIds = Arrays.copyOf(regIds, capacity);
+            names = Arrays.copyOf(names, capacity);
+            deptCodes = Arrays.copyOf(deptCodes, capacity);
+            colorCodes = Arrays.copyOf(colorCodes, capacity);
+            attributes = Arrays.copyOf(attributes, capacity);
+        }
+        ids[size] = id;
+        regIds[size] = regId;
+        names[size] = name;
+        deptCodes[size] = dept != null ? depts.encode(dept) : NO_CODE;
+        colorCodes[size] = color != null ? colors.encode(color) : NO_CODE;
+        size++;
+        clearTeams();
+    }
+
+    /**
+     * Append a student, copying its fields and attributes
+     */
+    public void add(Student student) {
+        add(student.getId(), student.getRegId(), student.getName(), student.getDept(), student.getColor());
+        for (Map.Entry<String, String> attribute : student.getAttributes().entrySet()) {
+            setAttribute(size - 1, attribute.getKey(), attribute.getValue());
+        }
+    }
+
+    /**
+     * Set an extra attribute of the student at the given index
+     */
+    public void setAttribute(int index, String name, String value) {
+        int code = attributeNames.encode(name);
+        String[] values = attributes[index];
+        if (values == null || values.length <= code) {
+            values = values == null ? new String[code + 1] : Arrays.copyOf(values, code + 1);
+            attributes[index] = values;
+        }
+        values[code] = value;
+    }
+
+    /**
+     * Build a roster from a list of students
+     */
+    public static CompactRoster of(List<Student> students) {
+        CompactRoster roster = new CompactRoster();
+        for (Student student : students) {
+            roster.add(student);
+        }
+        return roster;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public String getId(int index) {
+        return ids[index];
+    }
+
+    public String getRegId(int index) {
+        return regIds[index];
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    public String getDept(int index) {
+        return depts.decode(deptCodes[index]);
+    }
+
+    /**
+     * @return Dense department code in [0, getDeptCount()), or -1 if unset
+     */
+    public int getDeptCode(int index) {
+        return deptCodes[index];
+    }
+
+    public int getDeptCount() {
+        return depts.size();
+    }
+
+    /**
+     * @return Department for a code returned by getDeptCode
+     */
+    public String getDeptByCode(int code) {
+        return depts.decode(code);
+    }
+
+    public String getColor(int index) {
+        return colors.decode(colorCodes[index]);
+    }
+
+    /**
+     * @return Dense color code in [0, getColorCount()), or -1 if unset
+     */
+    public int getColorCode(int index) {
+        return colorCodes[index];
+    }
+
+    public int getColorCount() {
+        return colors.size();
+    }
+
+    /**
+     * @return Color for a code returned by getColorCode
+     */
+    public String getColorByCode(int code) {
+        return colors.decode(code);
+    }
+
+    /**
+     * @return Number of distinct attribute names
+     */
+    public int getAttributeCount() {
+        return attributeNames.size();
+    }
+
+    /**
+     * @return Attribute name for a code in [0, getAttributeCount())
+     */
+    public String getAttributeName(int code) {
+        return attributeNames.decode(code);
+    }
+
+    /**
+     * @return Value of the attribute with the given name code, or null if unset
+     */
+    public String getAttribute(int index, int code) {
+        String[] values = attributes[index];
+        return values != null && code < values.length ? values[code] : null;
+    }
+
+    /**
+     * Record a team assignment. Team t consists of the students
+     * order[teamOffsets[t]] .. order[teamOffsets[t + 1] - 1].
+     *
+     * @param order       Permutation of student indexes
+     * @param teamOffsets Team start offsets into order, with a final entry equal
+     *                    to size()
+     */
+    public void assignTeams(int[] order, int[] teamOffsets) {
+        if (order.length != size || teamOffsets.length == 0 || teamOffsets[teamOffsets.length - 1] != size) {
+            throw new IllegalArgumentException("Team assignment does not cover the roster");
+        }
+        // Built here rather than on first lookup, since statistics read it from
+        // parallel streams
+        int[] lookup = new int[size];
+        for (int t = 0; t < teamOffsets.length - 1; t++) {
+            for (int k = teamOffsets[t]; k < teamOffsets[t + 1]; k++) {
+                lookup[order[k]] = t;
+            }
+        }
+        this.order = order;
+        this.teamOffsets = teamOffsets;
+        this.teamOf = lookup;
+    }
+
+    public boolean hasTeams() {
+        return order != null;
+    }
+
+    public int getTeamCount() {
+        return hasTeams() ? teamOffsets.length - 1 : 0;
+    }
+
+    public int getTeamSize(int team) {
+        return teamOffsets[team + 1] - teamOffsets[team];
+    }
+
+    /**
+     * @return Index of the position-th student of the given team
+     */
+    public int getTeamMember(int team, int position) {
+        return order[teamOffsets[team] + position];
+    }
+
+    /**
+     * @return Team number of the student, or -1 if teams are not assigned
+     */
+    public int getTeamOf(int index) {
+        return hasTeams() ? teamOf[index] : NO_CODE;
+    }
+
+    public static String teamName(int team) {
+        return "Team_" + team;
+    }
+
+    /**
+     * Create a Student for the given index, including its team name when
+     * teams are assigned
+     */
+    public Student getStudent(int index) {
+        Student student = new Student(ids[index], regIds[index], names[index], getDept(index));
+        student.setColor(getColor(index));
+        String[] values = attributes[index];
+        if (values != null) {
+            for (int code = 0; code < values.length; code++) {
+                if (values[code] != null) {
+                    student.setAttribute(attributeNames.decode(code), values[code]);
+                }
+            }
+        }
+        int team = getTeamOf(index);
+        if (team != NO_CODE) {
+            student.setTeam(teamName(team));
+        }
+        return student;
+    }
+
+    /**
+     * @return Read-only list view of the students in roster order
+     */
+    public List<Student> asStudents() {
+        return new AbstractList<Student>() {
+            @Override
+            public Student get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                }
+                return getStudent(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * @return Read-only list-of-lists view of the assigned teams, in the shape
+     *         returned by ITeamsService.splitIntoTeams
+     */
+    public List<List<Student>> teams() {
+        int teamCount = getTeamCount();
+        List<List<Student>> teams = new ArrayList<>(teamCount);
+        for (int t = 0; t < teamCount; t++) {
+            final int team = t;
+            teams.add(new AbstractList<Student>() {
+                @Override
+                public Student get(int position) {
+                    if (position < 0 || position >= getTeamSize(team)) {
+                        throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size());
+                    }
+                    return getStudent(getTeamMember(team, position));
+                }
+
+                @Override
+                public int size() {
+                    return getTeamSize(team);
+                }
+            });
+        }
+        return teams;
+    }
+
+    private void clearTeams() {
+        order = null;
+        teamOffsets = null;
+        teamOf = null;
+    }
+
+    /**
+     * String to dense int code mapping
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        String decode(int code) {
+            return code == NO_CODE ? null : values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
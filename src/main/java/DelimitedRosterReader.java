@@ -0,0 +1,250 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads rosters from CSV or TSV files using memory-mapped I/O.
+ *
+ * Columns are located from the header line with a RosterSchema, as in
+ * ExcelService.readStudentsFromExcel. Fields may be quoted with '"' (""
+ * inside quotes is a literal quote). The file is scanned byte by byte from
+ * mapped windows; only the fields that map to a slot are decoded into
+ * Strings.
+ */
+public class DelimitedRosterReader {
+    private static final Logger logger = LoggerFactory.getLogger(DelimitedRosterReader.class);
+
+    // Bytes mapped at a time; windows restart at the last complete line
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final byte delimiter;
+    private final RosterSchema schema;
+
+    public DelimitedRosterReader(char delimiter) {
+        this(delimiter, RosterSchema.defaults());
+    }
+
+    public DelimitedRosterReader(char delimiter, RosterSchema schema) {
+        this.delimiter = (byte) delimiter;
+        this.schema = schema;
+    }
+
+    /**
+     * @return True if the path has an extension this reader handles
+     */
+    public static boolean isDelimitedFile(String filePath) {
+        String lower = filePath.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".csv") || lower.endsWith(".tsv") || lower.endsWith(".tab");
+    }
+
+    /**
+     * Create a reader for the file's extension: tab for .tsv/.tab, comma
+     * otherwise
+     */
+    public static DelimitedRosterReader forFile(String filePath) {
+        return forFile(filePath, RosterSchema.defaults());
+    }
+
+    /**
+     * Create a reader for the file's extension that maps columns with the
+     * given schema
+     */
+    public static DelimitedRosterReader forFile(String filePath, RosterSchema schema) {
+        String lower = filePath.toLowerCase(Locale.ROOT);
+        return new DelimitedRosterReader(lower.endsWith(".tsv") || lower.endsWith(".tab") ? '\t' : ',', schema);
+    }
+
+    /**
+     * Read all students from a delimited file
+     *
+     * @param filePath Path to the file
+     * @return List of students
+     * @throws IOException If file cannot be read
+     */
+    public List<Student> readStudents(String filePath) throws IOException {
+        List<Student> students = new ArrayList<>();
+        readStudents(filePath, students::add);
+        return students;
+    }
+
+    /**
+     * Stream students from a delimited file to the consumer, in file order
+     *
+     * @param filePath Path to the file
+     * @param consumer Receives each student
+     * @return Number of students read
+     * @throws IOException If file cannot be read
+     */
+    public int readStudents(String filePath, Consumer<Student> consumer) throws IOException {
+        int count = 0;
+        LineParser parser = new LineParser();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = 0;
+
+            while (position < fileSize) {
+                long length = Math.min(WINDOW_SIZE, fileSize - position);
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean lastWindow = position + length == fileSize;
+
+                int start = 0;
+                if (position == 0 && length >= 3 && (buffer.get(0) & 0xFF) == 0xEF
+                        && (buffer.get(1) & 0xFF) == 0xBB && (buffer.get(2) & 0xFF) == 0xBF) {
+                    start = 3; // UTF-8 byte order mark
+                }
+
+                int limit = (int) length;
+                while (start < limit) {
+                    int end = parser.parse(buffer, start, limit, lastWindow);
+                    if (end < 0) {
+                        break; // incomplete line, remap from its start
+                    }
+                    if (!parser.hasHeader()) {
+                        parser.compileHeader();
+                    } else {
+                        Student student = parser.toStudent();
+                        if (student != null) {
+                            consumer.accept(student);
+                            count++;
+                        }
+                    }
+                    start = end;
+                }
+
+                if (start == 0 && !lastWindow) {
+                    throw new IOException("Line longer than " + WINDOW_SIZE + " bytes in " + filePath);
+                }
+                position += start;
+            }
+        }
+
+        logger.info("Read {} students from delimited file: {}", count, filePath);
+        return count;
+    }
+
+    /**
+     * Splits one line into the fields of interest, reusing its buffers across
+     * lines. The first line fills headers; later lines fill values by slot.
+     */
+    private class LineParser {
+        private final List<String> headers = new ArrayList<>();
+        private RosterSchema.RowDecoder decoder;
+        private String[] values;
+        private byte[] field = new byte[256];
+        private int fieldLength;
+
+        boolean hasHeader() {
+            return decoder != null;
+        }
+
+        void compileHeader() {
+            decoder = schema.compile(headers);
+            values = new String[decoder.getSlotCount()];
+        }
+
+        /**
+         * Parse the line starting at start
+         *
+         * @return Offset just past the line terminator, or -1 if the line is not
+         *         complete within limit and more data follows
+         */
+        int parse(MappedByteBuffer buffer, int start, int limit, boolean lastWindow) {
+            // A line cut off by the window end is parsed again from its start
+            if (decoder == null) {
+                headers.clear();
+            } else {
+                Arrays.fill(values, null);
+            }
+            int column = 0;
+            int pos = start;
+            boolean quoted = false;
+            boolean fieldStart = true;
+            fieldLength = 0;
+
+            while (pos < limit) {
+                byte b = buffer.get(pos++);
+                if (quoted) {
+                    if (b == '"') {
+                        if (pos < limit && buffer.get(pos) == '"') {
+                            append(b);
+                            pos++;
+                        } else if (pos >= limit && !lastWindow) {
+                            return -1;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        append(b);
+                    }
+                } else if (b == '"' && fieldStart) {
+                    quoted = true;
+                    fieldStart = false;
+                } else if (b == delimiter) {
+                    endField(column++);
+                    fieldStart = true;
+                } else if (b == '\n' || b == '\r') {
+                    if (b == '\r') {
+                        if (pos < limit && buffer.get(pos) == '\n') {
+                            pos++;
+                        } else if (pos >= limit && !lastWindow) {
+                            return -1;
+                        }
+                    }
+                    endField(column);
+                    return pos;
+                } else {
+                    append(b);
+                    fieldStart = false;
+                }
+            }
+
+            if (!lastWindow) {
+                return -1;
+            }
+            endField(column);
+            return pos;
+        }
+
+        private void append(byte b) {
+            if (fieldLength == field.length) {
+                byte[] grown = new byte[field.length * 2];
+                System.arraycopy(field, 0, grown, 0, fieldLength);
+                field = grown;
+            }
+            field[fieldLength++] = b;
+        }
+
+        private void endField(int column) {
+            if (decoder == null) {
+                headers.add(decode());
+            } else {
+                // Columns the schema does not map are skipped without decoding
+                int slot = decoder.slotOf(column);
+                if (slot >= 0) {
+                    values[slot] = decode();
+                }
+            }
+            fieldLength = 0;
+        }
+
+        private String decode() {
+            return new String(field, 0, fieldLength, StandardCharsets.UTF_8);
+        }
+
+        Student toStudent() {
+            return decoder.toStudent(values);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Team service that spreads every department across all teams.
+ *
+ * Students are grouped into one stratum per department with a counting sort,
+ * the strata are shuffled (in parallel on a fork-join pool for large
+ * rosters), and the shuffled strata are then dealt round-robin into teams so
+ * each team receives its proportional share of every department. The
+ * grouping, shuffle and deal are shared with DressColorTeamService through
+ * Strata, which keeps a fixed seed's teams independent of the parallelism.
+ */
+public class DepartmentStratifiedTeamService implements ITeamsService {
+    private static final Logger logger = LoggerFactory.getLogger(DepartmentStratifiedTeamService.class);
+    private static final int DEFAULT_TEAM_SIZE = 10;
+    private static final String UNKNOWN_DEPT = "";
+
+    // Rosters smaller than this are shuffled on the calling thread
+    private static final int PARALLEL_THRESHOLD = 8192;
+
+    private final ForkJoinPool pool;
+
+    // Fixed shuffle seed, null for a fresh seed per call
+    private Long seed;
+
+    public DepartmentStratifiedTeamService() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public DepartmentStratifiedTeamService(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Split students into teams of at most the specified size, spreading each
+     * department evenly across the teams
+     *
+     * @param students List of all students
+     * @param teamSize Maximum size of each team (default: 10)
+     * @return List of teams, each containing a list of students
+     */
+    @Override
+    public List<List<Student>> splitIntoTeams(List<Student> students, int teamSize) {
+        if (students == null || students.isEmpty()) {
+            logger.warn("No students provided for team creation");
+            return new ArrayList<>();
+        }
+
+        if (teamSize <= 0) {
+            teamSize = DEFAULT_TEAM_SIZE;
+        }
+
+        // Group by department, shuffle each stratum, then deal strata round-robin
+        Strata depts = Strata.group(students, DepartmentStratifiedTeamService::deptOf);
+        long runSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+        depts.shuffle(runSeed, students.size() >= PARALLEL_THRESHOLD ? pool : null);
+        List<List<Student>> teams = depts.deal(teamSize);
+
+        logger.info("Created {} teams from {} students across {} departments (team size: {})",
+                teams.size(), students.size(), depts.count(), teamSize);
+
+        return teams;
+    }
+
+    /**
+     * Split students into teams of default size (10)
+     *
+     * @param students List of all students
+     * @return List of teams, each containing a list of students
+     */
+    @Override
+    public List<List<Student>> splitIntoTeams(List<Student> students) {
+        return splitIntoTeams(students, DEFAULT_TEAM_SIZE);
+    }
+
+    /**
+     * Get statistics about team sizes and the department spread of each team
+     *
+     * @param teams List of teams
+     * @return Team statistics as a formatted string
+     */
+    @Override
+    public String getTeamStatistics(List<List<Student>> teams) {
+        if (teams.isEmpty()) {
+            return "No teams created";
+        }
+
+        int totalStudents = 0;
+        int minTeamSize = Integer.MAX_VALUE;
+        int maxTeamSize = 0;
+        StringBuilder perTeam = new StringBuilder();
+        for (int t = 0; t < teams.size(); t++) {
+            List<Student> team = teams.get(t);
+            totalStudents += team.size();
+            minTeamSize = Math.min(minTeamSize, team.size());
+            maxTeamSize = Math.max(maxTeamSize, team.size());
+
+            Map<String, Integer> histogram = new LinkedHashMap<>();
+            for (Student student : team) {
+                histogram.merge(deptOf(student), 1, Integer::sum);
+            }
+            String teamName = team.isEmpty() || team.get(0).getTeam() == null ? "Team_" + t : team.get(0).getTeam();
+            perTeam.append(String.format("%n- %s: %d students, %d departments %s",
+                    teamName, team.size(), histogram.size(), histogram));
+        }
+
+        return String.format(
+                "Team Statistics:\n" +
+                        "- Total Teams: %d\n" +
+                        "- Total Students: %d\n" +
+                        "- Min Team Size: %d\n" +
+                        "- Max Team Size: %d\n" +
+                        "- Average Team Size: %.2f\n" +
+                        "Department Spread:%s",
+                teams.size(), totalStudents, minTeamSize, maxTeamSize, (double) totalStudents / teams.size(),
+                perTeam);
+    }
+
+    private static String deptOf(Student student) {
+        String dept = student.getDept();
+        return dept != null ? dept : UNKNOWN_DEPT;
+    }
+}
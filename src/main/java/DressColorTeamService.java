@@ -1,23 +1,134 @@
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
-public class DressColorTeamService implements ITeamsService{
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Team service that spreads dress colors evenly across teams.
+ *
+ * Students are bucketed by color with a counting sort over int arrays (see
+ * Strata), each bucket is shuffled, and the buckets are then dealt
+ * round-robin into teams. Every step is a single pass, so the whole split
+ * runs in O(n).
+ */
+public class DressColorTeamService implements ITeamsService {
+	private static final Logger logger = LoggerFactory.getLogger(DressColorTeamService.class);
+	private static final int DEFAULT_TEAM_SIZE = 10;
+	private static final String UNKNOWN_COLOR = "";
+
+	// Fixed shuffle seed, null for a fresh seed per call
+	private Long seed;
 
+	@Override
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Split students into teams of at most the specified size, with each color
+	 * spread as evenly as possible over the teams
+	 *
+	 * @param students List of all students
+	 * @param teamSize Maximum size of each team (default: 10)
+	 * @return List of teams, each containing a list of students
+	 */
 	@Override
 	public List<List<Student>> splitIntoTeams(List<Student> students, int teamSize) {
-		// TODO Auto-generated method stub
-		return null;
+		if (students == null || students.isEmpty()) {
+			logger.warn("No students provided for team creation");
+			return new ArrayList<>();
+		}
+
+		if (teamSize <= 0) {
+			teamSize = DEFAULT_TEAM_SIZE;
+		}
+
+		// Bucket by color, shuffle inside each bucket so teams stay random within
+		// a color, then deal round-robin so every color is spread over all teams
+		Strata colors = Strata.group(students, DressColorTeamService::colorOf);
+		colors.shuffle(seed != null ? seed : ThreadLocalRandom.current().nextLong(), null);
+		List<List<Student>> teams = colors.deal(teamSize);
+
+		logger.info("Created {} teams from {} students across {} colors (team size: {})",
+				teams.size(), students.size(), colors.count(), teamSize);
+
+		return teams;
 	}
 
+	/**
+	 * Split students into teams of default size (10)
+	 *
+	 * @param students List of all students
+	 * @return List of teams, each containing a list of students
+	 */
 	@Override
 	public List<List<Student>> splitIntoTeams(List<Student> students) {
-		// TODO Auto-generated method stub
-		return null;
+		return splitIntoTeams(students, DEFAULT_TEAM_SIZE);
 	}
 
+	/**
+	 * Get statistics about team sizes and color spread
+	 *
+	 * @param teams List of teams
+	 * @return Team statistics as a formatted string
+	 */
 	@Override
 	public String getTeamStatistics(List<List<Student>> teams) {
-		// TODO Auto-generated method stub
-		return null;
+		if (teams.isEmpty()) {
+			return "No teams created";
+		}
+
+		int totalStudents = 0;
+		int minTeamSize = Integer.MAX_VALUE;
+		int maxTeamSize = 0;
+		int minColors = Integer.MAX_VALUE;
+		int maxColors = 0;
+		Map<String, Integer> colorCodes = new HashMap<>();
+		for (List<Student> team : teams) {
+			totalStudents += team.size();
+			minTeamSize = Math.min(minTeamSize, team.size());
+			maxTeamSize = Math.max(maxTeamSize, team.size());
+
+			// Distinct colors in this team; codes are dense and at most one new code
+			// per student can appear, so this bitmap never needs to grow
+			boolean[] seen = new boolean[colorCodes.size() + team.size()];
+			int distinct = 0;
+			for (Student student : team) {
+				String color = colorOf(student);
+				Integer code = colorCodes.get(color);
+				if (code == null) {
+					code = colorCodes.size();
+					colorCodes.put(color, code);
+				}
+				if (!seen[code]) {
+					seen[code] = true;
+					distinct++;
+				}
+			}
+			minColors = Math.min(minColors, distinct);
+			maxColors = Math.max(maxColors, distinct);
+		}
+
+		return String.format(
+				"Team Statistics:\n" +
+						"- Total Teams: %d\n" +
+						"- Total Students: %d\n" +
+						"- Min Team Size: %d\n" +
+						"- Max Team Size: %d\n" +
+						"- Average Team Size: %.2f\n" +
+						"- Total Colors: %d\n" +
+						"- Min Colors per Team: %d\n" +
+						"- Max Colors per Team: %d",
+				teams.size(), totalStudents, minTeamSize, maxTeamSize, (double) totalStudents / teams.size(),
+				colorCodes.size(), minColors, maxColors);
 	}
 
+	private static String colorOf(Student student) {
+		String color = student.getColor();
+		return color != null ? color : UNKNOWN_COLOR;
+	}
 }
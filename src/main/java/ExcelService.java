@@ -2,13 +2,26 @@
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.DateUtil;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Font;
@@ -16,9 +29,17 @@ import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 /**
  * Service class for Excel operations
@@ -26,6 +47,60 @@ import org.slf4j.LoggerFactory;
 public class ExcelService {
     private static final Logger logger = LoggerFactory.getLogger(ExcelService.class);
 
+    // Rows kept in memory by the streaming writer before flushing to disk
+    private static final int STREAMING_ROW_WINDOW = 100;
+
+    // Excel's maximum column width, in 1/256th of a character
+    private static final int MAX_COLUMN_WIDTH = 255 * 256;
+
+    private static final String[] OUTPUT_HEADERS = { "Student ID", "Student Name", "RegId", "Dept", "Team Name" };
+
+    private PhaseMetrics metrics = PhaseMetrics.DISABLED;
+
+    // Add a Run-Metrics sheet to team output when metrics are enabled
+    private boolean metricsSheet;
+
+    // Add a Team-Stats sheet to written workbooks
+    private boolean statisticsSheet;
+
+    // Header names -> Student fields for every roster read
+    private RosterSchema schema = RosterSchema.defaults();
+
+    // Runs the async variants
+    private Executor asyncExecutor = AsyncTask.ioExecutor();
+
+    public void setMetrics(PhaseMetrics metrics) {
+        this.metrics = metrics != null ? metrics : PhaseMetrics.DISABLED;
+    }
+
+    public void setMetricsSheet(boolean metricsSheet) {
+        this.metricsSheet = metricsSheet;
+    }
+
+    public void setStatisticsSheet(boolean statisticsSheet) {
+        this.statisticsSheet = statisticsSheet;
+    }
+
+    public RosterSchema getSchema() {
+        return schema;
+    }
+
+    public void setSchema(RosterSchema schema) {
+        this.schema = schema;
+    }
+
+    public Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    /**
+     * Set the executor for the async variants; null restores the default,
+     * AsyncTask.ioExecutor()
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor != null ? asyncExecutor : AsyncTask.ioExecutor();
+    }
+
     /**
      * Read student details from Excel file
      * 
@@ -37,6 +112,24 @@ public class ExcelService {
      */
     public List<Student> readStudentsFromExcel(String filePath, String sheetName) throws IOException {
         List<Student> students = new ArrayList<>();
+        readStudentsFromExcel(filePath, sheetName, students::add);
+        return students;
+    }
+
+    /**
+     * Read student details from Excel file, passing each student to the
+     * consumer in sheet order
+     * 
+     * @param filePath  Path to the Excel file
+     * @param sheetName Name of the sheet to read from (optional, uses first sheet
+     *                  if null)
+     * @param consumer  Receives each student
+     * @return Number of students read
+     * @throws IOException If file cannot be read
+     */
+    public int readStudentsFromExcel(String filePath, String sheetName, Consumer<Student> consumer)
+            throws IOException {
+        int count = 0;
 
         try (FileInputStream fis = new FileInputStream(filePath);
                 Workbook workbook = new XSSFWorkbook(fis)) {
@@ -49,34 +142,184 @@ public class ExcelService {
 
             logger.info("Reading students from sheet: {}", sheet.getSheetName());
 
-            // Skip header row (assuming first row contains headers)
+            // Compile the header row once; data rows then only touch mapped columns
+            RosterSchema.RowDecoder decoder = schema.compile(headerCells(sheet.getRow(0)));
+            int[] columns = decoder.getMappedColumns();
+            int[] slots = new int[columns.length];
+            for (int k = 0; k < columns.length; k++) {
+                slots[k] = decoder.slotOf(columns[k]);
+            }
+            String[] values = new String[decoder.getSlotCount()];
+
             for (int i = 1; i <= sheet.getLastRowNum(); i++) {
                 Row row = sheet.getRow(i);
                 if (row == null)
                     continue;
 
-                Cell idCell = row.getCell(0);
-                Cell regNoCell = row.getCell(1);
-                Cell nameCell = row.getCell(2);
-                Cell branchCell = row.getCell(3);
+                for (int k = 0; k < columns.length; k++) {
+                    Cell cell = row.getCell(columns[k]);
+                    if (cell != null) {
+                        values[slots[k]] = getCellValueAsString(cell);
+                    }
+                }
+
+                Student student = decoder.toStudent(values);
+                if (student != null) {
+                    consumer.accept(student);
+                    count++;
+                }
+            }
+        }
 
-                if (idCell != null && nameCell != null) {
-                    String id = getCellValueAsString(idCell);
-                    String name = getCellValueAsString(nameCell);
-                    String regNo = getCellValueAsString(regNoCell);
-                    String branch = getCellValueAsString(branchCell);
+        logger.info("Read {} students from Excel file", count);
+        return count;
+    }
 
-                    if (!id.trim().isEmpty() && !name.trim().isEmpty()) {
-                        students.add(new Student(id.trim(), regNo.trim(), name.trim(), branch.trim()));
+    /**
+     * Read student details from Excel file using the streaming (SAX) event model.
+     * Rows are parsed straight from the sheet XML, so memory use stays flat
+     * regardless of roster size.
+     * 
+     * @param filePath  Path to the Excel file
+     * @param sheetName Name of the sheet to read from (optional, uses first sheet
+     *                  if null)
+     * @return List of students
+     * @throws IOException If file cannot be read
+     */
+    public List<Student> readStudentsFromExcelStreaming(String filePath, String sheetName) throws IOException {
+        List<Student> students = new ArrayList<>();
+        readStudentsStreaming(filePath, sheetName, students::add);
+        return students;
+    }
+
+    /**
+     * Stream student details from Excel file, handing each student to the
+     * consumer as soon as its row has been parsed
+     * 
+     * @param filePath  Path to the Excel file
+     * @param sheetName Name of the sheet to read from (optional, uses first sheet
+     *                  if null)
+     * @param consumer  Receives each student in sheet order
+     * @return Number of students read
+     * @throws IOException If file cannot be read
+     */
+    public int readStudentsStreaming(String filePath, String sheetName, Consumer<Student> consumer)
+            throws IOException {
+        try (OPCPackage pkg = OPCPackage.open(filePath, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            StylesTable styles = reader.getStylesTable();
+
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                try (InputStream sheetStream = sheets.next()) {
+                    if (sheetName != null && !sheetName.equals(sheets.getSheetName())) {
+                        continue;
                     }
+
+                    logger.info("Streaming students from sheet: {}", sheets.getSheetName());
+
+                    StudentSheetHandler handler = new StudentSheetHandler(sharedStrings, styles, schema, consumer);
+                    XMLReader parser = XMLHelper.newXMLReader();
+                    parser.setContentHandler(handler);
+                    parser.parse(new InputSource(sheetStream));
+
+                    logger.info("Read {} students from Excel file", handler.getStudentCount());
+                    return handler.getStudentCount();
                 }
             }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Unable to stream Excel file: " + filePath, e);
         }
 
-        logger.info("Read {} students from Excel file", students.size());
+        throw new IllegalArgumentException("Sheet not found: " + sheetName);
+    }
+
+    /**
+     * Read student details from Excel file into a compact columnar roster,
+     * streaming rows so no Student list is ever held in memory
+     * 
+     * @param filePath  Path to the Excel file
+     * @param sheetName Name of the sheet to read from (optional, uses first sheet
+     *                  if null)
+     * @return Compact roster of students
+     * @throws IOException If file cannot be read
+     */
+    public CompactRoster readCompactRoster(String filePath, String sheetName) throws IOException {
+        CompactRoster roster = new CompactRoster();
+        readStudentsStreaming(filePath, sheetName, roster::add);
+        return roster;
+    }
+
+    /**
+     * Read a team assignment previously written by writeTeamsToExcel or by
+     * write-back. Student columns are found with the roster schema and the
+     * team by its "Team" or "Team Name" header.
+     * 
+     * @param filePath Path to the team output file
+     * @return Students with their team set, in file order
+     * @throws IOException If file cannot be read
+     */
+    public List<Student> readTeamAssignments(String filePath) throws IOException {
+        List<Student> students = new ArrayList<>();
+
+        try (FileInputStream fis = new FileInputStream(filePath);
+                Workbook workbook = new XSSFWorkbook(fis)) {
+
+            Sheet sheet = workbook.getSheetAt(0);
+            logger.info("Reading team assignments from sheet: {}", sheet.getSheetName());
+
+            List<String> headers = headerCells(sheet.getRow(0));
+            int teamColumn = -1;
+            for (int col = 0; col < headers.size() && teamColumn < 0; col++) {
+                if (TeamColumnWriter.isTeamHeader(headers.get(col))) {
+                    teamColumn = col;
+                }
+            }
+            if (teamColumn < 0) {
+                throw new IllegalArgumentException("No Team column in " + filePath + ": " + headers);
+            }
+
+            // The Team column is read separately, never as a student field
+            headers.set(teamColumn, null);
+            RosterSchema.RowDecoder decoder = schema.compile(headers);
+            List<Integer> columns = new ArrayList<>();
+            for (int col : decoder.getMappedColumns()) {
+                if (col != teamColumn) {
+                    columns.add(col);
+                }
+            }
+            String[] values = new String[decoder.getSlotCount()];
+
+            for (int i = 1; i <= sheet.getLastRowNum(); i++) {
+                Row row = sheet.getRow(i);
+                if (row == null)
+                    continue;
+
+                for (int col : columns) {
+                    Cell cell = row.getCell(col);
+                    if (cell != null) {
+                        values[decoder.slotOf(col)] = getCellValueAsString(cell);
+                    }
+                }
+                Student student = decoder.toStudent(values);
+                String team = cellText(row.getCell(teamColumn));
+                if (student == null || team.isEmpty())
+                    continue;
+
+                student.setTeam(team);
+                students.add(student);
+            }
+        }
+
+        logger.info("Read {} team assignments from Excel file", students.size());
         return students;
     }
 
+    private String cellText(Cell cell) {
+        return cell != null ? getCellValueAsString(cell).trim() : "";
+    }
+
     /**
      * Write teams to separate sheets in Excel file
      * 
@@ -94,73 +337,271 @@ public class ExcelService {
             CellStyle dataStyle = createDataStyle(workbook);
             String sheetName = "Student-Teams";
             Sheet sheet = workbook.createSheet(sheetName);
-            for (int i = 0; i <= allStudents.size(); i++) {
-
-                // Create header row
-                if (i == 0) {
-                    Row headerRow = sheet.createRow(0);
-                    Cell headerCell1 = headerRow.createCell(0);
-                    headerCell1.setCellValue("Student ID");
-                    headerCell1.setCellStyle(headerStyle);
-
-                    Cell headerCell2 = headerRow.createCell(1);
-                    headerCell2.setCellValue("Student Name");
-                    headerCell2.setCellStyle(headerStyle);
-
-                    Cell headerCell3 = headerRow.createCell(2);
-                    headerCell3.setCellValue("RegId");
-                    headerCell3.setCellStyle(headerStyle);
-                    Cell headerCell4 = headerRow.createCell(3);
-                    headerCell4.setCellValue("Dept");
-                    headerCell4.setCellStyle(headerStyle);
-
-                    Cell headerCell5 = headerRow.createCell(4);
-                    headerCell5.setCellValue("Team Name");
-                    headerCell5.setCellStyle(headerStyle);
-                } else {
+            try (PhaseMetrics.Timer timer = metrics.start("row building")) {
+                for (int i = 0; i <= allStudents.size(); i++) {
 
-                    Student student = allStudents.get(i - 1);
-                    Row dataRow = sheet.createRow(i);
+                    // Create header row
+                    if (i == 0) {
+                        Row headerRow = sheet.createRow(0);
+                        Cell headerCell1 = headerRow.createCell(0);
+                        headerCell1.setCellValue("Student ID");
+                        headerCell1.setCellStyle(headerStyle);
 
-                    Cell idCell = dataRow.createCell(0);
-                    idCell.setCellValue(student.getId());
-                    idCell.setCellStyle(dataStyle);
+                        Cell headerCell2 = headerRow.createCell(1);
+                        headerCell2.setCellValue("Student Name");
+                        headerCell2.setCellStyle(headerStyle);
 
-                    Cell nameCell = dataRow.createCell(1);
-                    nameCell.setCellValue(student.getName());
-                    nameCell.setCellStyle(dataStyle);
+                        Cell headerCell3 = headerRow.createCell(2);
+                        headerCell3.setCellValue("RegId");
+                        headerCell3.setCellStyle(headerStyle);
+                        Cell headerCell4 = headerRow.createCell(3);
+                        headerCell4.setCellValue("Dept");
+                        headerCell4.setCellStyle(headerStyle);
 
-                    Cell regIdCell = dataRow.createCell(2);
-                    regIdCell.setCellValue(student.getRegId());
-                    regIdCell.setCellStyle(dataStyle);
+                        Cell headerCell5 = headerRow.createCell(4);
+                        headerCell5.setCellValue("Team Name");
+                        headerCell5.setCellStyle(headerStyle);
+                    } else {
 
-                    Cell deptCell = dataRow.createCell(3);
-                    deptCell.setCellValue(student.getDept());
-                    deptCell.setCellStyle(dataStyle);
+                        Student student = allStudents.get(i - 1);
+                        Row dataRow = sheet.createRow(i);
 
-                    Cell teamCell = dataRow.createCell(4);
-                    teamCell.setCellValue(student.getTeam());
-                    teamCell.setCellStyle(dataStyle);
-                }
+                        Cell idCell = dataRow.createCell(0);
+                        idCell.setCellValue(student.getId());
+                        idCell.setCellStyle(dataStyle);
+
+                        Cell nameCell = dataRow.createCell(1);
+                        nameCell.setCellValue(student.getName());
+                        nameCell.setCellStyle(dataStyle);
+
+                        Cell regIdCell = dataRow.createCell(2);
+                        regIdCell.setCellValue(student.getRegId());
+                        regIdCell.setCellStyle(dataStyle);
+
+                        Cell deptCell = dataRow.createCell(3);
+                        deptCell.setCellValue(student.getDept());
+                        deptCell.setCellStyle(dataStyle);
+
+                        Cell teamCell = dataRow.createCell(4);
+                        teamCell.setCellValue(student.getTeam());
+                        teamCell.setCellStyle(dataStyle);
+                    }
 
+                }
+                timer.setRows(allStudents.size());
             }
 
             // Auto-size columns
-            sheet.autoSizeColumn(0);
-            sheet.autoSizeColumn(1);
-            sheet.autoSizeColumn(2);
-            sheet.autoSizeColumn(3);
-            sheet.autoSizeColumn(4);
+            try (PhaseMetrics.Timer timer = metrics.start("column sizing")) {
+                sheet.autoSizeColumn(0);
+                sheet.autoSizeColumn(1);
+                sheet.autoSizeColumn(2);
+                sheet.autoSizeColumn(3);
+                sheet.autoSizeColumn(4);
+                timer.setRows(allStudents.size());
+            }
+
+            if (statisticsSheet) {
+                TeamStatistics.of(teams).writeSheet(workbook);
+            }
+
+            if (metricsSheet && metrics.isEnabled()) {
+                metrics.writeSummarySheet(workbook);
+            }
 
             // Write to file
-            try (FileOutputStream fos = new FileOutputStream(outputFilePath)) {
+            try (PhaseMetrics.Timer timer = metrics.start("file write");
+                    FileOutputStream fos = new FileOutputStream(outputFilePath)) {
                 workbook.write(fos);
+                timer.setRows(allStudents.size());
             }
         }
 
         logger.info("Successfully wrote {} teams to Excel file: {}", teams.size(), outputFilePath);
     }
 
+    /**
+     * Write teams to Excel file using the streaming (SXSSF) workbook. Only a
+     * small window of rows is kept in memory and column widths are derived from
+     * the longest value written, so large outputs run in flat memory.
+     * 
+     * @param teams          List of student teams
+     * @param outputFilePath Path for output Excel file
+     * @throws IOException If file cannot be written
+     */
+    public void writeTeamsToExcelStreaming(List<List<Student>> teams, String outputFilePath) throws IOException {
+        writeTeamsToExcelStreaming(teams.iterator(), outputFilePath);
+    }
+
+    /**
+     * Write teams to Excel file using the streaming (SXSSF) workbook, taking
+     * teams from an iterator as they become available
+     * 
+     * @param teams          Teams to write, consumed in order
+     * @param outputFilePath Path for output Excel file
+     * @return Number of teams written
+     * @throws IOException If file cannot be written
+     */
+    public int writeTeamsToExcelStreaming(Iterator<List<Student>> teams, String outputFilePath) throws IOException {
+        int teamCount = writeStreaming(teams, workbook -> {
+            try (FileOutputStream fos = new FileOutputStream(outputFilePath)) {
+                workbook.write(fos);
+            }
+        });
+        logger.info("Successfully streamed {} teams to Excel file: {}", teamCount, outputFilePath);
+        return teamCount;
+    }
+
+    /**
+     * Write teams as a streaming (SXSSF) workbook to an output stream, which
+     * is left open
+     * 
+     * @param teams Teams to write, consumed in order
+     * @param out   Destination stream
+     * @return Number of teams written
+     * @throws IOException If the workbook cannot be written
+     */
+    public int writeTeamsToExcelStreaming(Iterator<List<Student>> teams, OutputStream out) throws IOException {
+        return writeStreaming(teams, workbook -> workbook.write(out));
+    }
+
+    /**
+     * Read students on the async executor with the streaming reader.
+     * Cancelling the future stops the read at the next row.
+     * 
+     * @param filePath  Path to the Excel file
+     * @param sheetName Name of the sheet to read from (optional, uses first sheet
+     *                  if null)
+     * @return Future list of students
+     */
+    public CompletableFuture<List<Student>> readStudentsAsync(String filePath, String sheetName) {
+        return AsyncTask.submit(asyncExecutor, task -> {
+            List<Student> students = new ArrayList<>();
+            readStudentsStreaming(filePath, sheetName, task.watch(students::add));
+            return students;
+        });
+    }
+
+    /**
+     * Stream students to the consumer on the async executor. The consumer is
+     * called on the executor's thread. Cancelling the future stops the read at
+     * the next row.
+     * 
+     * @return Future number of students read
+     */
+    public CompletableFuture<Integer> readStudentsAsync(String filePath, String sheetName,
+            Consumer<Student> consumer) {
+        return AsyncTask.submit(asyncExecutor,
+                task -> readStudentsStreaming(filePath, sheetName, task.watch(consumer)));
+    }
+
+    /**
+     * Write teams on the async executor, as writeTeamsToExcel. Cancelling the
+     * future stops building the workbook at the next team.
+     * 
+     * @return Future completing once the file is written
+     */
+    public CompletableFuture<Void> writeTeamsToExcelAsync(List<List<Student>> teams, String outputFilePath) {
+        return AsyncTask.submit(asyncExecutor, task -> {
+            writeTeamsToExcel(task.watch(teams), outputFilePath);
+            return null;
+        });
+    }
+
+    /**
+     * Write teams on the async executor with the streaming (SXSSF) writer.
+     * Cancelling the future stops writing at the next team.
+     * 
+     * @return Future number of teams written
+     */
+    public CompletableFuture<Integer> writeTeamsToExcelStreamingAsync(List<List<Student>> teams,
+            String outputFilePath) {
+        return AsyncTask.submit(asyncExecutor,
+                task -> writeTeamsToExcelStreaming(task.watch(teams.iterator()), outputFilePath));
+    }
+
+    private int writeStreaming(Iterator<List<Student>> teams, WorkbookSink sink) throws IOException {
+        int teamCount = 0;
+        SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_ROW_WINDOW);
+        try {
+            CellStyle headerStyle = createHeaderStyle(workbook);
+            CellStyle dataStyle = createDataStyle(workbook);
+            Sheet sheet = workbook.createSheet("Student-Teams");
+
+            int[] maxLengths = new int[OUTPUT_HEADERS.length];
+            Row headerRow = sheet.createRow(0);
+            for (int col = 0; col < OUTPUT_HEADERS.length; col++) {
+                writeCell(headerRow, col, OUTPUT_HEADERS[col], headerStyle, maxLengths);
+            }
+
+            TeamStatistics.Accumulator statistics = statisticsSheet ? new TeamStatistics.Accumulator() : null;
+            int rowNum = 1;
+            try (PhaseMetrics.Timer timer = metrics.start("row building")) {
+                while (teams.hasNext()) {
+                    List<Student> team = teams.next();
+                    teamCount++;
+                    if (statistics != null) {
+                        statistics.add(team);
+                    }
+                    for (Student student : team) {
+                        Row dataRow = sheet.createRow(rowNum++);
+                        writeCell(dataRow, 0, student.getId(), dataStyle, maxLengths);
+                        writeCell(dataRow, 1, student.getName(), dataStyle, maxLengths);
+                        writeCell(dataRow, 2, student.getRegId(), dataStyle, maxLengths);
+                        writeCell(dataRow, 3, student.getDept(), dataStyle, maxLengths);
+                        writeCell(dataRow, 4, student.getTeam(), dataStyle, maxLengths);
+                    }
+                }
+                timer.setRows(rowNum - 1);
+            }
+
+            // Size columns from tracked lengths instead of re-scanning rows
+            try (PhaseMetrics.Timer timer = metrics.start("column sizing")) {
+                for (int col = 0; col < maxLengths.length; col++) {
+                    sheet.setColumnWidth(col, Math.min((maxLengths[col] + 2) * 256, MAX_COLUMN_WIDTH));
+                }
+                timer.setRows(rowNum - 1);
+            }
+
+            if (statistics != null) {
+                statistics.build().writeSheet(workbook);
+            }
+
+            if (metricsSheet && metrics.isEnabled()) {
+                metrics.writeSummarySheet(workbook);
+            }
+
+            try (PhaseMetrics.Timer timer = metrics.start("file write")) {
+                sink.write(workbook);
+                timer.setRows(rowNum - 1);
+            }
+        } finally {
+            // Remove the temporary files backing the flushed rows
+            workbook.dispose();
+            workbook.close();
+        }
+        return teamCount;
+    }
+
+    /**
+     * Destination of a finished workbook
+     */
+    private interface WorkbookSink {
+        void write(Workbook workbook) throws IOException;
+    }
+
+    /**
+     * Write a string cell and track the longest value seen in its column
+     */
+    private void writeCell(Row row, int col, String value, CellStyle style, int[] maxLengths) {
+        Cell cell = row.createCell(col);
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+        if (value != null && value.length() > maxLengths[col]) {
+            maxLengths[col] = value.length();
+        }
+    }
+
     /**
      * Create header cell style
      */
@@ -191,11 +632,29 @@ public class ExcelService {
         return style;
     }
 
+    /**
+     * Header cell text by column index, null for missing cells
+     */
+    private List<String> headerCells(Row row) {
+        List<String> headers = new ArrayList<>();
+        if (row != null) {
+            for (int col = 0; col < row.getLastCellNum(); col++) {
+                Cell cell = row.getCell(col);
+                headers.add(cell != null ? getCellValueAsString(cell) : null);
+            }
+        }
+        return headers;
+    }
+
     /**
      * Convert cell value to string
      */
     private String getCellValueAsString(Cell cell) {
-        switch (cell.getCellType()) {
+        return getCellValueAsString(cell, cell.getCellType());
+    }
+
+    private String getCellValueAsString(Cell cell, CellType type) {
+        switch (type) {
             case STRING:
                 return cell.getStringCellValue();
             case NUMERIC:
@@ -214,7 +673,8 @@ public class ExcelService {
             case BOOLEAN:
                 return String.valueOf(cell.getBooleanCellValue());
             case FORMULA:
-                return cell.getCellFormula();
+                // The result Excel cached when the formula was last calculated
+                return getCellValueAsString(cell, cell.getCachedFormulaResultType());
             default:
                 return "";
         }
@@ -1,4 +1,10 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 public interface ITeamsService {
 	
@@ -8,5 +14,64 @@ public interface ITeamsService {
 	 
 	 public String getTeamStatistics(List<List<Student>> teams);
 	 
+	 /**
+	  * Compute size, department and diversity statistics for teams in a
+	  * single pass over their students
+	  */
+	 public default TeamStatistics computeStatistics(List<List<Student>> teams) {
+		 return TeamStatistics.of(teams);
+	 }
+	 
+	 /**
+	  * Fix the seed of the service's random choices so repeated runs over the
+	  * same roster produce the same teams
+	  */
+	 public void setSeed(long seed);
+	 
+	 /**
+	  * Split a compact roster into teams, recording the result with
+	  * CompactRoster.assignTeams. The default implementation materializes
+	  * Student objects and delegates to splitIntoTeams; implementations that can
+	  * work on indexes directly should override it.
+	  */
+	 public default void assignTeams(CompactRoster roster, int teamSize) {
+		 List<Student> students = new ArrayList<>(roster.asStudents());
+		 Map<Student, Integer> indexes = new IdentityHashMap<>(students.size());
+		 for (int i = 0; i < students.size(); i++) {
+			 indexes.put(students.get(i), i);
+		 }
+
+		 List<List<Student>> teams = splitIntoTeams(students, teamSize);
+		 int[] order = new int[roster.size()];
+		 int[] teamOffsets = new int[teams.size() + 1];
+		 int k = 0;
+		 for (int t = 0; t < teams.size(); t++) {
+			 teamOffsets[t] = k;
+			 for (Student student : teams.get(t)) {
+				 order[k++] = indexes.get(student);
+			 }
+		 }
+		 teamOffsets[teams.size()] = k;
+		 roster.assignTeams(order, teamOffsets);
+	 }
+	 
+	 /**
+	  * Split students into teams on the common fork-join pool
+	  */
+	 public default CompletableFuture<List<List<Student>>> splitIntoTeamsAsync(List<Student> students, int teamSize) {
+		 return splitIntoTeamsAsync(students, teamSize, ForkJoinPool.commonPool());
+	 }
+	 
+	 /**
+	  * Split students into teams on the given executor. Cancelling the future
+	  * completes it at once and interrupts the split; services that do not
+	  * check for interrupts finish the split in the background and the result
+	  * is dropped.
+	  */
+	 public default CompletableFuture<List<List<Student>>> splitIntoTeamsAsync(List<Student> students, int teamSize,
+			 Executor executor) {
+		 return AsyncTask.submit(executor, task -> splitIntoTeams(students, teamSize));
+	 }
+	 
 
 }
@@ -0,0 +1,235 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps an existing team assignment and applies roster changes to it without
+ * reshuffling. Removed students leave their team, new students fill the
+ * smallest teams first (opening new teams only when every team is full), and
+ * teams that drop below half size are folded into other teams with room.
+ *
+ * Building the index is linear in the roster once; each change afterwards
+ * costs O(log teams), and only students of affected teams can move.
+ */
+public class IncrementalTeamService {
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalTeamService.class);
+    private static final int DEFAULT_TEAM_SIZE = 10;
+    private static final String TEAM_PREFIX = "Team_";
+
+    private final int teamSize;
+    private final Map<String, List<Student>> teams = new LinkedHashMap<>();
+    private final Map<String, Student> studentsById = new HashMap<>();
+
+    // Teams ordered by size; entries go stale when sizes change and are
+    // refreshed lazily when polled
+    private final PriorityQueue<TeamSlot> smallestTeams = new PriorityQueue<>();
+    private int nextTeamNo;
+
+    private final Set<String> changedStudentIds = new LinkedHashSet<>();
+
+    /**
+     * @param previousTeams Existing assignment, e.g. grouped from the Team Name
+     *                      column of a previous output
+     * @param teamSize      Maximum team size (default: 10)
+     */
+    public IncrementalTeamService(List<List<Student>> previousTeams, int teamSize) {
+        this.teamSize = teamSize > 0 ? teamSize : DEFAULT_TEAM_SIZE;
+        for (List<Student> team : previousTeams) {
+            for (Student student : team) {
+                String teamName = student.getTeam();
+                teams.computeIfAbsent(teamName, k -> new ArrayList<>(this.teamSize)).add(student);
+                studentsById.put(student.getId(), student);
+                nextTeamNo = Math.max(nextTeamNo, teamNumber(teamName) + 1);
+            }
+        }
+        for (Map.Entry<String, List<Student>> entry : teams.entrySet()) {
+            smallestTeams.add(new TeamSlot(entry.getKey(), entry.getValue().size()));
+        }
+    }
+
+    /**
+     * Group students by their team field, keeping first-seen team order
+     *
+     * @param students Students with team set
+     * @return Teams in the shape returned by ITeamsService.splitIntoTeams
+     */
+    public static List<List<Student>> groupByTeam(List<Student> students) {
+        Map<String, List<Student>> grouped = new LinkedHashMap<>();
+        for (Student student : students) {
+            grouped.computeIfAbsent(student.getTeam(), k -> new ArrayList<>()).add(student);
+        }
+        return new ArrayList<>(grouped.values());
+    }
+
+    /**
+     * Apply a roster change
+     *
+     * @param added      Students joining; ids already assigned are ignored
+     * @param removedIds Ids of students leaving; unknown ids are ignored
+     * @return Teams after the change
+     */
+    public List<List<Student>> applyChanges(Collection<Student> added, Collection<String> removedIds) {
+        Set<String> affectedTeams = new LinkedHashSet<>();
+
+        for (String id : removedIds) {
+            Student student = studentsById.remove(id);
+            if (student == null) {
+                continue;
+            }
+            List<Student> team = teams.get(student.getTeam());
+            team.remove(student);
+            affectedTeams.add(student.getTeam());
+            smallestTeams.add(new TeamSlot(student.getTeam(), team.size()));
+        }
+
+        int placed = 0;
+        for (Student student : added) {
+            if (studentsById.containsKey(student.getId())) {
+                continue;
+            }
+            String teamName = place(student, null);
+            affectedTeams.add(teamName);
+            placed++;
+        }
+
+        int moved = rebalance(affectedTeams);
+
+        logger.info("Applied {} removals and {} additions; {} students moved, {} teams affected",
+                removedIds.size(), placed, moved, affectedTeams.size());
+        return getTeams();
+    }
+
+    /**
+     * Fold affected teams that fell below half size into other teams with room
+     */
+    private int rebalance(Set<String> affectedTeams) {
+        int minSize = (teamSize + 1) / 2;
+        int moved = 0;
+        for (String teamName : affectedTeams) {
+            List<Student> team = teams.get(teamName);
+            if (team == null || team.isEmpty() || team.size() >= minSize) {
+                continue;
+            }
+            if (spareCapacityExcluding(teamName) < team.size()) {
+                continue;
+            }
+            for (Student student : new ArrayList<>(team)) {
+                team.remove(student);
+                place(student, teamName);
+                moved++;
+            }
+        }
+        teams.values().removeIf(List::isEmpty);
+        return moved;
+    }
+
+    /**
+     * Put the student into the smallest non-full team other than the excluded
+     * one, opening a new team when none has room
+     */
+    private String place(Student student, String excludedTeam) {
+        List<TeamSlot> skipped = new ArrayList<>();
+        String target = null;
+        while (!smallestTeams.isEmpty()) {
+            TeamSlot slot = smallestTeams.poll();
+            List<Student> team = teams.get(slot.teamName);
+            if (team == null || team.size() != slot.size) {
+                // Stale entry: a fresh one was queued when the size changed
+                continue;
+            }
+            if (slot.teamName.equals(excludedTeam) || team.isEmpty()) {
+                skipped.add(slot);
+                continue;
+            }
+            if (team.size() < teamSize) {
+                target = slot.teamName;
+            } else {
+                skipped.add(slot);
+            }
+            break;
+        }
+        smallestTeams.addAll(skipped);
+
+        if (target == null) {
+            target = TEAM_PREFIX + nextTeamNo++;
+            teams.put(target, new ArrayList<>(teamSize));
+        }
+
+        List<Student> team = teams.get(target);
+        student.setTeam(target);
+        team.add(student);
+        studentsById.put(student.getId(), student);
+        changedStudentIds.add(student.getId());
+        smallestTeams.add(new TeamSlot(target, team.size()));
+        if (excludedTeam != null) {
+            smallestTeams.add(new TeamSlot(excludedTeam, teams.get(excludedTeam).size()));
+        }
+        return target;
+    }
+
+    private int spareCapacityExcluding(String teamName) {
+        // Linear in the number of teams, only reached for undersized teams
+        int spare = 0;
+        for (Map.Entry<String, List<Student>> entry : teams.entrySet()) {
+            if (!entry.getKey().equals(teamName) && !entry.getValue().isEmpty()) {
+                spare += Math.max(0, teamSize - entry.getValue().size());
+            }
+        }
+        return spare;
+    }
+
+    /**
+     * @return Current teams, in team creation order
+     */
+    public List<List<Student>> getTeams() {
+        List<List<Student>> result = new ArrayList<>(teams.size());
+        for (List<Student> team : teams.values()) {
+            if (!team.isEmpty()) {
+                result.add(team);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return Ids of students whose team was set or changed by this service
+     */
+    public Set<String> getChangedStudentIds() {
+        return changedStudentIds;
+    }
+
+    private static int teamNumber(String teamName) {
+        if (teamName != null && teamName.startsWith(TEAM_PREFIX)) {
+            try {
+                return Integer.parseInt(teamName.substring(TEAM_PREFIX.length()));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static class TeamSlot implements Comparable<TeamSlot> {
+        private final String teamName;
+        private final int size;
+
+        TeamSlot(String teamName, int size) {
+            this.teamName = teamName;
+            this.size = size;
+        }
+
+        @Override
+        public int compareTo(TeamSlot other) {
+            return Integer.compare(size, other.size);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Seeded shuffle of int arrays that can run in parallel on a fork-join pool.
+ *
+ * The range is halved recursively down to fixed-size leaves, each leaf is
+ * Fisher-Yates shuffled, and sibling halves are combined bottom-up with the
+ * MergeShuffle merge (Bacher et al.), which keeps the result a uniformly
+ * random permutation. Every node of the tree draws from its own
+ * SplittableRandom derived from the seed and the node's position, and the
+ * tree shape depends only on the length of the range, so a given seed yields
+ * the same permutation on one thread or many.
+ */
+public class PermutationShuffler {
+    // Ranges up to this size are shuffled directly on the calling thread
+    private static final int DEFAULT_LEAF_SIZE = 1 << 16;
+
+    private final long seed;
+    private final ForkJoinPool pool;
+    private final int leafSize;
+
+    public PermutationShuffler(long seed) {
+        this(seed, ForkJoinPool.commonPool());
+    }
+
+    public PermutationShuffler(long seed, ForkJoinPool pool) {
+        this(seed, pool, DEFAULT_LEAF_SIZE);
+    }
+
+    PermutationShuffler(long seed, ForkJoinPool pool, int leafSize) {
+        this.seed = seed;
+        this.pool = pool;
+        this.leafSize = Math.max(2, leafSize);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return A shuffled permutation of 0..n-1
+     */
+    public int[] permutation(int n) {
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = i;
+        }
+        shuffle(values, 0, n);
+        return values;
+    }
+
+    /**
+     * Shuffle the whole array in place
+     */
+    public void shuffle(int[] values) {
+        shuffle(values, 0, values.length);
+    }
+
+    /**
+     * Shuffle values[from, to) in place
+     */
+    public void shuffle(int[] values, int from, int to) {
+        if (to - from <= leafSize) {
+            fisherYates(values, from, to, random(seed, 1));
+        } else {
+            pool.invoke(new ShuffleTask(values, from, to, 1));
+        }
+    }
+
+    /**
+     * Independent random stream for one node of the shuffle tree, or for any
+     * other numbered unit of work that must not depend on scheduling
+     *
+     * @param seed   Run seed
+     * @param stream Stream number
+     * @return Generator seeded from both values
+     */
+    public static SplittableRandom random(long seed, long stream) {
+        // SplitMix64 finalizer, so neighbouring streams start far apart
+        long z = seed + stream * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    private static void fisherYates(int[] values, int from, int to, SplittableRandom random) {
+        for (int i = to - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            int tmp = values[i];
+            values[i] = values[j];
+            values[j] = tmp;
+        }
+    }
+
+    /**
+     * Merge two shuffled neighbouring ranges [from, mid) and [mid, to) into a
+     * shuffled range: interleave them by coin flips until one side runs out,
+     * then insert the rest of the other side at random positions
+     */
+    private static void merge(int[] values, int from, int mid, int to, SplittableRandom random) {
+        int i = from;
+        int j = mid;
+        int bits = 0;
+        int bitsLeft = 0;
+        while (true) {
+            if (bitsLeft == 0) {
+                bits = random.nextInt();
+                bitsLeft = 32;
+            }
+            boolean takeRight = (bits & 1) != 0;
+            bits >>>= 1;
+            bitsLeft--;
+
+            if (takeRight) {
+                if (j == to) {
+                    break;
+                }
+                int tmp = values[i];
+                values[i] = values[j];
+                values[j] = tmp;
+                j++;
+            } else if (i == j) {
+                break;
+            }
+            i++;
+        }
+        for (; i < to; i++) {
+            int k = from + random.nextInt(i - from + 1);
+            int tmp = values[i];
+            values[i] = values[k];
+            values[k] = tmp;
+        }
+    }
+
+    /**
+     * Shuffles one node of the tree; node numbers follow heap order (children
+     * of n are 2n and 2n+1)
+     */
+    private class ShuffleTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] values;
+        private final int from;
+        private final int to;
+        private final long node;
+
+        ShuffleTask(int[] values, int from, int to, long node) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.node = node;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                fisherYates(values, from, to, random(seed, node));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ShuffleTask(values, from, mid, 2 * node),
+                    new ShuffleTask(values, mid, to, 2 * node + 1));
+            merge(values, from, mid, to, random(seed, node));
+        }
+    }
+}
@@ -0,0 +1,252 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Records wall time, CPU time, allocated bytes and row throughput per
+ * pipeline phase (read, shuffle, split, row building, column sizing, file
+ * write).
+ *
+ * CPU time and allocation are measured for the thread that runs the phase,
+ * through ThreadMXBean. The DISABLED instance hands out a shared no-op timer,
+ * so instrumented code pays only a virtual call when metrics are off.
+ *
+ * Usage:
+ * try (PhaseMetrics.Timer timer = metrics.start("read")) { ... timer.setRows(n); }
+ */
+public class PhaseMetrics {
+    public static final PhaseMetrics DISABLED = new PhaseMetrics(false);
+
+    private static final Timer NOOP_TIMER = new Timer(null, null) {
+        @Override
+        public void setRows(long rows) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private final boolean enabled;
+    private final List<Phase> phases = new ArrayList<>();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    private PhaseMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return A new, recording metrics instance
+     */
+    public static PhaseMetrics enabled() {
+        return new PhaseMetrics(true);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start timing a phase; close the returned timer when the phase ends
+     */
+    public Timer start(String name) {
+        return enabled ? new Timer(this, name) : NOOP_TIMER;
+    }
+
+    /**
+     * @return Snapshot of recorded phases in completion order
+     */
+    public synchronized List<Phase> getPhases() {
+        return new ArrayList<>(phases);
+    }
+
+    private synchronized void record(Phase phase) {
+        phases.add(phase);
+    }
+
+    private long cpuNanos() {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : -1;
+    }
+
+    private long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled()) {
+                return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Write the recorded phases as a JSON report
+     *
+     * @param reportPath Path of the JSON file
+     * @throws IOException If the report cannot be written
+     */
+    public void writeJsonReport(String reportPath) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(reportPath), StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        }
+    }
+
+    /**
+     * @return Recorded phases as a JSON document
+     */
+    public String toJson() {
+        List<Phase> snapshot = getPhases();
+        StringBuilder json = new StringBuilder("{\n  \"phases\": [");
+        long totalWall = 0;
+        for (int i = 0; i < snapshot.size(); i++) {
+            Phase phase = snapshot.get(i);
+            totalWall += phase.getWallNanos();
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\"name\": \"").append(escape(phase.getName())).append('"')
+                    .append(", \"thread\": \"").append(escape(phase.getThread())).append('"')
+                    .append(", \"wallMillis\": ").append(millis(phase.getWallNanos()))
+                    .append(", \"cpuMillis\": ").append(millis(phase.getCpuNanos()))
+                    .append(", \"allocatedBytes\": ").append(phase.getAllocatedBytes())
+                    .append(", \"rows\": ").append(phase.getRows())
+                    .append(", \"rowsPerSecond\": ")
+                    .append(String.format(Locale.ROOT, "%.1f", phase.getRowsPerSecond()))
+                    .append('}');
+        }
+        json.append("\n  ],\n  \"totalWallMillis\": ").append(millis(totalWall))
+                .append("\n}\n");
+        return json.toString();
+    }
+
+    /**
+     * Add a sheet listing the phases recorded so far
+     *
+     * @param workbook Workbook to add the sheet to
+     */
+    public void writeSummarySheet(Workbook workbook) {
+        Sheet sheet = workbook.createSheet("Run-Metrics");
+        String[] headers = { "Phase", "Thread", "Wall ms", "CPU ms", "Allocated bytes", "Rows", "Rows/s" };
+        Row header = sheet.createRow(0);
+        for (int col = 0; col < headers.length; col++) {
+            header.createCell(col).setCellValue(headers[col]);
+        }
+        int rowNum = 1;
+        for (Phase phase : getPhases()) {
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(phase.getName());
+            row.createCell(1).setCellValue(phase.getThread());
+            row.createCell(2).setCellValue(phase.getWallNanos() / 1e6);
+            row.createCell(3).setCellValue(phase.getCpuNanos() / 1e6);
+            row.createCell(4).setCellValue(phase.getAllocatedBytes());
+            row.createCell(5).setCellValue(phase.getRows());
+            row.createCell(6).setCellValue(phase.getRowsPerSecond());
+        }
+    }
+
+    private static String millis(long nanos) {
+        return nanos < 0 ? "-1" : String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Running measurement of one phase
+     */
+    public static class Timer implements AutoCloseable {
+        private final PhaseMetrics metrics;
+        private final String name;
+        private final long startWall;
+        private final long startCpu;
+        private final long startAllocated;
+        private long rows;
+
+        private Timer(PhaseMetrics metrics, String name) {
+            this.metrics = metrics;
+            this.name = name;
+            if (metrics != null) {
+                startCpu = metrics.cpuNanos();
+                startAllocated = metrics.allocatedBytes();
+                startWall = System.nanoTime();
+            } else {
+                startCpu = 0;
+                startAllocated = 0;
+                startWall = 0;
+            }
+        }
+
+        /**
+         * Set the number of rows (students, cells) the phase handled
+         */
+        public void setRows(long rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public void close() {
+            long wall = System.nanoTime() - startWall;
+            long cpu = startCpu >= 0 ? metrics.cpuNanos() - startCpu : -1;
+            long allocated = startAllocated >= 0 ? metrics.allocatedBytes() - startAllocated : -1;
+            metrics.record(new Phase(name, Thread.currentThread().getName(), wall, cpu, allocated, rows));
+        }
+    }
+
+    /**
+     * Completed measurement of one phase
+     */
+    public static class Phase {
+        private final String name;
+        private final String thread;
+        private final long wallNanos;
+        private final long cpuNanos;
+        private final long allocatedBytes;
+        private final long rows;
+
+        Phase(String name, String thread, long wallNanos, long cpuNanos, long allocatedBytes, long rows) {
+            this.name = name;
+            this.thread = thread;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.rows = rows;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public double getRowsPerSecond() {
+            return wallNanos > 0 ? rows * 1e9 / wallNanos : 0;
+        }
+    }
+}
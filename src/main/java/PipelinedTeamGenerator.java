@@ -0,0 +1,304 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs read, assign and write as an overlapping pipeline:
+ *
+ * reader thread -> bounded student queue -> assigner (calling thread) ->
+ * bounded team queue -> writer thread
+ *
+ * The reader streams rows (SAX for xlsx, mapped buffers for csv/tsv). The
+ * assigner collects a block of teamsPerBlock teams worth of students,
+ * shuffles the block and cuts it into teams, so randomness is per block
+ * rather than over the whole roster. The writer streams teams into an SXSSF
+ * workbook. Full queues block the producer, so memory stays bounded by the
+ * queue capacities and one block. Nothing is written for an empty roster.
+ *
+ * Teams are always random blocks; team services and their strategies do not
+ * apply to this mode.
+ */
+public class PipelinedTeamGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(PipelinedTeamGenerator.class);
+    private static final int DEFAULT_TEAM_SIZE = 10;
+    private static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    private static final int DEFAULT_TEAMS_PER_BLOCK = 256;
+    private static final long POLL_MILLIS = 100;
+
+    // Identity sentinels marking the end of each queue
+    private static final Student END_OF_STUDENTS = new Student();
+    private static final List<Student> END_OF_TEAMS = new ArrayList<>(0);
+
+    private final ExcelService excelService;
+    private final int queueCapacity;
+    private final int teamsPerBlock;
+
+    // Fixed block shuffle seed, null for unseeded shuffles
+    private Long seed;
+
+    public PipelinedTeamGenerator(ExcelService excelService) {
+        this(excelService, DEFAULT_QUEUE_CAPACITY, DEFAULT_TEAMS_PER_BLOCK);
+    }
+
+    public PipelinedTeamGenerator(ExcelService excelService, int queueCapacity, int teamsPerBlock) {
+        this.excelService = excelService;
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.teamsPerBlock = Math.max(1, teamsPerBlock);
+    }
+
+    /**
+     * Fix the block shuffle seed. Blocks are cut in file order, so a fixed
+     * seed gives the same teams for the same input.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Read, assign and write in one pipelined pass
+     *
+     * @param inputFile  Roster workbook or csv/tsv file
+     * @param sheetName  Sheet to read (null for first sheet, ignored for csv)
+     * @param outputFile Output workbook
+     * @param teamSize   Team size (default: 10)
+     * @return Number of students and teams processed
+     * @throws IOException If reading or writing fails
+     */
+    public Summary run(String inputFile, String sheetName, String outputFile, int teamSize) throws IOException {
+        if (teamSize <= 0) {
+            teamSize = DEFAULT_TEAM_SIZE;
+        }
+        BlockingQueue<Student> studentQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<Student>> teamQueue = new ArrayBlockingQueue<>(Math.max(2, queueCapacity / teamSize));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> reader = executor.submit(() -> {
+                try {
+                    return read(inputFile, sheetName, studentQueue, failure);
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                    throw t;
+                } finally {
+                    offerEnd(studentQueue, END_OF_STUDENTS, failure);
+                }
+            });
+
+            Future<Integer> writer = null;
+            try {
+                // The output is only created once there is a student to write
+                Student first = take(studentQueue, failure);
+                if (first != END_OF_STUDENTS) {
+                    writer = executor.submit(() -> {
+                        try {
+                            return excelService.writeTeamsToExcelStreaming(new QueueIterator(teamQueue, failure),
+                                    outputFile);
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                            throw t;
+                        }
+                    });
+                    Random random = seed != null ? new Random(seed) : ThreadLocalRandom.current();
+                    assign(first, studentQueue, teamQueue, teamSize, random, failure);
+                }
+            } catch (RuntimeException | InterruptedException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                offerEnd(teamQueue, END_OF_TEAMS, failure);
+            }
+
+            int students = await(reader);
+            int teams = writer != null ? await(writer) : 0;
+            if (failure.get() != null) {
+                throw new IOException("Pipeline failed: " + failure.get().getMessage(), failure.get());
+            }
+            if (students == 0) {
+                logger.warn("No students read from {}; {} not written", inputFile, outputFile);
+                return new Summary(0, 0);
+            }
+
+            logger.info("Pipelined {} students into {} teams: {}", students, teams, outputFile);
+            return new Summary(students, teams);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int read(String inputFile, String sheetName, BlockingQueue<Student> queue,
+            AtomicReference<Throwable> failure) throws IOException {
+        // Rows repeating an id or regId are dropped before they reach a team
+        RosterIndex index = new RosterIndex(s -> put(queue, s, failure));
+        if (DelimitedRosterReader.isDelimitedFile(inputFile)) {
+            DelimitedRosterReader.forFile(inputFile, excelService.getSchema()).readStudents(inputFile, index);
+        } else {
+            excelService.readStudentsStreaming(inputFile, sheetName, index);
+        }
+        index.logConflicts(inputFile);
+        return index.size();
+    }
+
+    /**
+     * Cut the student stream, starting with the already taken first student,
+     * into shuffled blocks and emit their teams
+     */
+    private void assign(Student first, BlockingQueue<Student> studentQueue, BlockingQueue<List<Student>> teamQueue,
+            int teamSize, Random random, AtomicReference<Throwable> failure) throws InterruptedException {
+        int blockSize = teamSize * teamsPerBlock;
+        List<Student> block = new ArrayList<>(blockSize);
+        int teamNo = 0;
+
+        Student student = first;
+        while (student != END_OF_STUDENTS) {
+            block.add(student);
+            if (block.size() == blockSize) {
+                teamNo = emitBlock(block, teamSize, teamNo, random, teamQueue, failure);
+                block = new ArrayList<>(blockSize);
+            }
+            student = take(studentQueue, failure);
+        }
+        if (!block.isEmpty()) {
+            emitBlock(block, teamSize, teamNo, random, teamQueue, failure);
+        }
+    }
+
+    private int emitBlock(List<Student> block, int teamSize, int teamNo, Random random,
+            BlockingQueue<List<Student>> teamQueue, AtomicReference<Throwable> failure) {
+        Collections.shuffle(block, random);
+        for (int i = 0; i < block.size(); i += teamSize) {
+            // Views over the block, which is not reused once emitted
+            List<Student> team = block.subList(i, Math.min(i + teamSize, block.size()));
+            String teamName = "Team_" + teamNo++;
+            for (Student student : team) {
+                student.setTeam(teamName);
+            }
+            put(teamQueue, team, failure);
+        }
+        return teamNo;
+    }
+
+    /**
+     * Blocking put that gives up once another stage has failed
+     */
+    private static <T> void put(BlockingQueue<T> queue, T item, AtomicReference<Throwable> failure) {
+        try {
+            while (!queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null) {
+                    throw new CancellationException("Pipeline aborted");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Pipeline interrupted");
+        }
+    }
+
+    /**
+     * Blocking take that gives up once another stage has failed
+     */
+    private static <T> T take(BlockingQueue<T> queue, AtomicReference<Throwable> failure) throws InterruptedException {
+        while (true) {
+            T item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (item != null) {
+                return item;
+            }
+            if (failure.get() != null) {
+                throw new CancellationException("Pipeline aborted");
+            }
+        }
+    }
+
+    private static <T> void offerEnd(BlockingQueue<T> queue, T end, AtomicReference<Throwable> failure) {
+        try {
+            put(queue, end, failure);
+        } catch (CancellationException e) {
+            // Consumer has stopped because of the recorded failure
+        }
+    }
+
+    private static int await(Future<Integer> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return 0; // recorded in the failure reference
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for pipeline", e);
+        }
+    }
+
+    /**
+     * Iterates teams from the queue until the end sentinel
+     */
+    private static class QueueIterator implements Iterator<List<Student>> {
+        private final BlockingQueue<List<Student>> queue;
+        private final AtomicReference<Throwable> failure;
+        private List<Student> next;
+
+        QueueIterator(BlockingQueue<List<Student>> queue, AtomicReference<Throwable> failure) {
+            this.queue = queue;
+            this.failure = failure;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = take(queue, failure);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("Pipeline interrupted");
+                }
+            }
+            return next != END_OF_TEAMS;
+        }
+
+        @Override
+        public List<Student> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<Student> team = next;
+            next = null;
+            return team;
+        }
+    }
+
+    /**
+     * Counts from a pipelined or spilling run
+     */
+    public static class Summary {
+        private final int studentCount;
+        private final int teamCount;
+
+        Summary(int studentCount, int teamCount) {
+            this.studentCount = studentCount;
+            this.teamCount = teamCount;
+        }
+
+        public int getStudentCount() {
+            return studentCount;
+        }
+
+        public int getTeamCount() {
+            return teamCount;
+        }
+    }
+}
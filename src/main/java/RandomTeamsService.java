@@ -1,18 +1,45 @@
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Service class for team management operations
+ *
+ * Students are shuffled through an int permutation from PermutationShuffler,
+ * so a fixed seed gives the same teams whatever the pool's thread count.
  */
 public class RandomTeamsService implements ITeamsService {
     private static final Logger logger = LoggerFactory.getLogger(RandomTeamsService.class);
     private static final int DEFAULT_TEAM_SIZE = 10;
 
+    private final ForkJoinPool pool;
+    private PhaseMetrics metrics = PhaseMetrics.DISABLED;
+
+    // Fixed shuffle seed, null for a fresh seed per call
+    private Long seed;
+
+    public RandomTeamsService() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public RandomTeamsService(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setMetrics(PhaseMetrics metrics) {
+        this.metrics = metrics != null ? metrics : PhaseMetrics.DISABLED;
+    }
+
     /**
      * Split students into teams of specified size
      * 
@@ -31,21 +58,27 @@ public class RandomTeamsService implements ITeamsService {
         }
 
         List<List<Student>> teams = new ArrayList<>();
-        List<Student> shuffledStudents = new ArrayList<>(students);
+        List<Student> shuffledStudents;
 
         // Optional: Shuffle students for random team assignment
-        Collections.shuffle(shuffledStudents);
-
-        for (int i = 0; i < shuffledStudents.size(); i += teamSize) {
-            int endIndex = Math.min(i + teamSize, shuffledStudents.size());
-            List<Student> team = new ArrayList<>(shuffledStudents.subList(i, endIndex));
-            int teamNo = i / teamSize;
-            String teamName = "Team_" + teamNo;
-
-            // Use stream to update team property
-            team.stream()
-                    .forEach(student -> student.setTeam(teamName));
-            teams.add(team);
+        try (PhaseMetrics.Timer timer = metrics.start("shuffle")) {
+            shuffledStudents = permute(students);
+            timer.setRows(shuffledStudents.size());
+        }
+
+        try (PhaseMetrics.Timer timer = metrics.start("split")) {
+            for (int i = 0; i < shuffledStudents.size(); i += teamSize) {
+                int endIndex = Math.min(i + teamSize, shuffledStudents.size());
+                List<Student> team = new ArrayList<>(shuffledStudents.subList(i, endIndex));
+                int teamNo = i / teamSize;
+                String teamName = "Team_" + teamNo;
+
+                // Use stream to update team property
+                team.stream()
+                        .forEach(student -> student.setTeam(teamName));
+                teams.add(team);
+            }
+            timer.setRows(shuffledStudents.size());
         }
 
         logger.info("Created {} teams from {} students (team size: {})",
@@ -69,6 +102,40 @@ public class RandomTeamsService implements ITeamsService {
         return splitIntoTeams(students, DEFAULT_TEAM_SIZE);
     }
 
+    /**
+     * Split a compact roster into teams of specified size by shuffling an int
+     * permutation; teams are consecutive ranges of the permutation
+     * 
+     * @param roster   Roster to assign
+     * @param teamSize Size of each team (default: 10)
+     */
+    @Override
+    public void assignTeams(CompactRoster roster, int teamSize) {
+        if (teamSize <= 0) {
+            teamSize = DEFAULT_TEAM_SIZE;
+        }
+
+        int n = roster.size();
+        int[] order;
+        try (PhaseMetrics.Timer timer = metrics.start("shuffle")) {
+            order = newShuffler().permutation(n);
+            timer.setRows(n);
+        }
+
+        int teamCount = (n + teamSize - 1) / teamSize;
+        try (PhaseMetrics.Timer timer = metrics.start("split")) {
+            int[] teamOffsets = new int[teamCount + 1];
+            for (int t = 0; t < teamCount; t++) {
+                teamOffsets[t] = t * teamSize;
+            }
+            teamOffsets[teamCount] = n;
+            roster.assignTeams(order, teamOffsets);
+            timer.setRows(n);
+        }
+
+        logger.info("Created {} teams from {} students (team size: {})", teamCount, n, teamSize);
+    }
+
     /**
      * Shuffle students randomly for team assignment
      * 
@@ -76,12 +143,30 @@ public class RandomTeamsService implements ITeamsService {
      * @return New list with shuffled students
      */
     public List<Student> shuffleStudents(List<Student> students) {
-        List<Student> shuffled = new ArrayList<>(students);
-        Collections.shuffle(shuffled);
+        List<Student> shuffled = permute(students);
         logger.info("Shuffled {} students for random team assignment", students.size());
         return shuffled;
     }
 
+    /**
+     * @return New list with the students in shuffled order
+     */
+    private List<Student> permute(List<Student> students) {
+        Student[] source = students.toArray(new Student[0]);
+        int[] order = newShuffler().permutation(source.length);
+        List<Student> shuffled = new ArrayList<>(source.length);
+        for (int index : order) {
+            shuffled.add(source[index]);
+        }
+        return shuffled;
+    }
+
+    private PermutationShuffler newShuffler() {
+        long runSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+        logger.info("Shuffle seed: {}", runSeed);
+        return new PermutationShuffler(runSeed, pool);
+    }
+
     /**
      * Get statistics about team distribution
      * 
@@ -89,22 +174,6 @@ public class RandomTeamsService implements ITeamsService {
      * @return Team statistics as a formatted string
      */
     public String getTeamStatistics(List<List<Student>> teams) {
-        if (teams.isEmpty()) {
-            return "No teams created";
-        }
-
-        int totalStudents = teams.stream().mapToInt(List::size).sum();
-        int minTeamSize = teams.stream().mapToInt(List::size).min().orElse(0);
-        int maxTeamSize = teams.stream().mapToInt(List::size).max().orElse(0);
-        double avgTeamSize = teams.stream().mapToInt(List::size).average().orElse(0.0);
-
-        return String.format(
-                "Team Statistics:\n" +
-                        "- Total Teams: %d\n" +
-                        "- Total Students: %d\n" +
-                        "- Min Team Size: %d\n" +
-                        "- Max Team Size: %d\n" +
-                        "- Average Team Size: %.2f",
-                teams.size(), totalStudents, minTeamSize, maxTeamSize, avgTeamSize);
+        return computeStatistics(teams).format();
     }
 }
\ No newline at end of file
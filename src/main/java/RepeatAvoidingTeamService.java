@@ -0,0 +1,411 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Team service that pairs students with people they have not been teamed
+ * with in earlier rounds.
+ *
+ * Previous rounds are added from earlier team outputs (student id and Team
+ * Name). Every student id seen gets a dense int id, and "was in the same
+ * team" is stored as one bit per unordered pair in a triangular bit matrix,
+ * so a history of n students costs n(n-1)/2 bits and a pair lookup is O(1).
+ *
+ * Assignment starts from a random split and then tries swaps of two students
+ * in different teams, accepting those that do not increase the number of
+ * repeated pairs. Evaluating a swap only looks at the two teams involved, so
+ * it costs O(team size). The search stops when no repeats are left, when it
+ * stalls, or at the time budget.
+ */
+public class RepeatAvoidingTeamService implements ITeamsService {
+    private static final Logger logger = LoggerFactory.getLogger(RepeatAvoidingTeamService.class);
+    private static final int DEFAULT_TEAM_SIZE = 10;
+    private static final long DEFAULT_TIME_BUDGET_MILLIS = 1000;
+    // Swaps between clock checks
+    private static final int CHECK_INTERVAL = 4096;
+    // Swaps without improvement before giving up, per student (at least MIN_STALL)
+    private static final int STALL_PER_STUDENT = 200;
+    private static final int MIN_STALL = 100_000;
+
+    private final long timeBudgetMillis;
+
+    // Dense ids of every student in the history
+    private final Map<String, Integer> denseIds = new HashMap<>();
+    private final PairMatrix history = new PairMatrix();
+    private int rounds;
+
+    // Fixed seed for the start and the swaps, null for a fresh seed per call
+    private Long seed;
+
+    public RepeatAvoidingTeamService() {
+        this(DEFAULT_TIME_BUDGET_MILLIS);
+    }
+
+    /**
+     * @param timeBudgetMillis Wall-clock limit for the swap search
+     */
+    public RepeatAvoidingTeamService(long timeBudgetMillis) {
+        this.timeBudgetMillis = Math.max(1, timeBudgetMillis);
+    }
+
+    /**
+     * Fix the seed of the random start and swaps. Runs that end before the
+     * time budget give the same teams for the same roster and history.
+     */
+    @Override
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Record a previous round
+     *
+     * @param assignments Students with their team name set
+     */
+    public void addRound(List<Student> assignments) {
+        Map<String, List<Integer>> teams = new LinkedHashMap<>();
+        for (Student student : assignments) {
+            if (student.getTeam() == null || student.getId() == null) {
+                continue;
+            }
+            teams.computeIfAbsent(student.getTeam(), t -> new ArrayList<>()).add(denseId(student.getId()));
+        }
+        for (List<Integer> members : teams.values()) {
+            for (int a = 0; a < members.size(); a++) {
+                for (int b = a + 1; b < members.size(); b++) {
+                    history.set(members.get(a), members.get(b));
+                }
+            }
+        }
+        rounds++;
+        logger.info("Added round {} with {} teams; history covers {} students", rounds, teams.size(),
+                denseIds.size());
+    }
+
+    /**
+     * Record previous rounds from team output workbooks
+     *
+     * @param excelService Reader for the workbooks
+     * @param files        Output files of earlier rounds
+     * @throws IOException If a file cannot be read
+     */
+    public void loadRounds(ExcelService excelService, List<String> files) throws IOException {
+        for (String file : files) {
+            addRound(excelService.readTeamAssignments(file));
+        }
+    }
+
+    public int getRoundCount() {
+        return rounds;
+    }
+
+    /**
+     * @return Number of pairs in the teams that were together in an earlier
+     *         round
+     */
+    public int countRepeats(List<List<Student>> teams) {
+        int repeats = 0;
+        for (List<Student> team : teams) {
+            int[] ids = new int[team.size()];
+            for (int i = 0; i < ids.length; i++) {
+                Integer id = denseIds.get(team.get(i).getId());
+                ids[i] = id != null ? id : -1;
+            }
+            for (int a = 0; a < ids.length; a++) {
+                for (int b = a + 1; b < ids.length; b++) {
+                    if (history.get(ids[a], ids[b])) {
+                        repeats++;
+                    }
+                }
+            }
+        }
+        return repeats;
+    }
+
+    /**
+     * Split students into teams of the specified size with as few repeated
+     * pairs as the search finds
+     *
+     * @param students List of all students
+     * @param teamSize Size of each team (default: 10)
+     * @return List of teams, each containing a list of students
+     */
+    @Override
+    public List<List<Student>> splitIntoTeams(List<Student> students, int teamSize) {
+        if (students == null || students.isEmpty()) {
+            logger.warn("No students provided for team creation");
+            return new ArrayList<>();
+        }
+
+        if (teamSize <= 0) {
+            teamSize = DEFAULT_TEAM_SIZE;
+        }
+
+        int n = students.size();
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            Integer id = denseIds.get(students.get(i).getId());
+            ids[i] = id != null ? id : -1;
+        }
+
+        SplittableRandom random = seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+        Search search = new Search(ids, teamSize, random);
+        int initial = search.repeats;
+        search.run(timeBudgetMillis);
+
+        List<List<Student>> teams = new ArrayList<>(search.teamCount);
+        for (int t = 0; t < search.teamCount; t++) {
+            String teamName = "Team_" + t;
+            List<Student> team = new ArrayList<>(search.teamSize(t));
+            for (int k = search.teamStart[t]; k < search.teamStart[t + 1]; k++) {
+                Student student = students.get(search.members[k]);
+                student.setTeam(teamName);
+                team.add(student);
+            }
+            teams.add(team);
+        }
+
+        logger.info("Created {} teams from {} students (team size: {}); repeated pairs {} -> {} over {} rounds",
+                teams.size(), n, teamSize, initial, search.repeats, rounds);
+        return teams;
+    }
+
+    /**
+     * Split students into teams of default size (10)
+     *
+     * @param students List of all students
+     * @return List of teams, each containing a list of students
+     */
+    @Override
+    public List<List<Student>> splitIntoTeams(List<Student> students) {
+        return splitIntoTeams(students, DEFAULT_TEAM_SIZE);
+    }
+
+    /**
+     * Get statistics about team sizes and repeated pairs
+     *
+     * @param teams List of teams
+     * @return Team statistics as a formatted string
+     */
+    @Override
+    public String getTeamStatistics(List<List<Student>> teams) {
+        if (teams.isEmpty()) {
+            return "No teams created";
+        }
+        return computeStatistics(teams).format()
+                + String.format("%n- Previous Rounds: %d%n- Repeated Pairs: %d", rounds, countRepeats(teams));
+    }
+
+    private int denseId(String id) {
+        Integer dense = denseIds.get(id);
+        if (dense == null) {
+            dense = denseIds.size();
+            denseIds.put(id, dense);
+        }
+        return dense;
+    }
+
+    /**
+     * One assignment: students members[teamStart[t] .. teamStart[t + 1]) form
+     * team t
+     */
+    class Search {
+        private final int[] ids;
+        private final SplittableRandom random;
+        private final int n;
+        private final int teamCount;
+        private final int[] teamStart;
+        private final int[] members;
+        private final int[] teamOf;
+        private final int[] slotOf;
+        private int repeats;
+
+        Search(int[] ids, int teamSize, SplittableRandom random) {
+            this.ids = ids;
+            this.random = random;
+            this.n = ids.length;
+            this.teamCount = (n + teamSize - 1) / teamSize;
+            this.teamStart = new int[teamCount + 1];
+            for (int t = 0; t < teamCount; t++) {
+                teamStart[t] = t * teamSize;
+            }
+            teamStart[teamCount] = n;
+
+            // Random start: shuffled indexes cut into consecutive teams
+            members = new int[n];
+            for (int i = 0; i < n; i++) {
+                members[i] = i;
+            }
+            for (int i = n - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int tmp = members[i];
+                members[i] = members[j];
+                members[j] = tmp;
+            }
+            teamOf = new int[n];
+            slotOf = new int[n];
+            for (int t = 0; t < teamCount; t++) {
+                for (int k = teamStart[t]; k < teamStart[t + 1]; k++) {
+                    teamOf[members[k]] = t;
+                    slotOf[members[k]] = k;
+                }
+            }
+
+            repeats = countRepeats();
+        }
+
+        int teamSize(int t) {
+            return teamStart[t + 1] - teamStart[t];
+        }
+
+        int teamOf(int i) {
+            return teamOf[i];
+        }
+
+        /**
+         * @return Repeated pairs as tracked through the accepted swaps
+         */
+        int getRepeats() {
+            return repeats;
+        }
+
+        /**
+         * @return Repeated pairs of the current assignment, counted from
+         *         scratch
+         */
+        int countRepeats() {
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                count += repeatsWith(i, teamOf[i], -1);
+            }
+            return count / 2;
+        }
+
+        /**
+         * Change in repeated pairs if students i and j (in different teams)
+         * swapped
+         *
+         * @param before repeatsWith(i, teamOf[i], -1), which the caller has
+         *               already computed
+         */
+        int swapDelta(int i, int j, int before) {
+            int teamA = teamOf[i];
+            int teamB = teamOf[j];
+            return repeatsWith(i, teamB, j) + repeatsWith(j, teamA, i) - before - repeatsWith(j, teamB, -1);
+        }
+
+        /**
+         * @return Earlier teammates of student i in team t, not counting i
+         *         itself or the excluded student
+         */
+        int repeatsWith(int i, int t, int excluded) {
+            int id = ids[i];
+            if (id < 0) {
+                return 0;
+            }
+            int count = 0;
+            for (int k = teamStart[t]; k < teamStart[t + 1]; k++) {
+                int m = members[k];
+                if (m != i && m != excluded && history.get(id, ids[m])) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        void run(long budgetMillis) {
+            if (teamCount < 2 || repeats == 0) {
+                return;
+            }
+            long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+            long stallLimit = Math.max(MIN_STALL, (long) STALL_PER_STUDENT * n);
+            long sinceImprovement = 0;
+            long iterations = 0;
+
+            while (repeats > 0 && sinceImprovement < stallLimit) {
+                if ((++iterations % CHECK_INTERVAL) == 0 && System.nanoTime() >= deadline) {
+                    break;
+                }
+                sinceImprovement++;
+
+                // Only students with an earlier teammate can lower the count
+                int i = random.nextInt(n);
+                int teamA = teamOf[i];
+                int before = repeatsWith(i, teamA, -1);
+                if (before == 0) {
+                    continue;
+                }
+                int j = random.nextInt(n);
+                int teamB = teamOf[j];
+                if (teamA == teamB) {
+                    continue;
+                }
+
+                int delta = swapDelta(i, j, before);
+                // Equal moves are taken too, to drift across plateaus
+                if (delta <= 0) {
+                    swap(i, j);
+                    repeats += delta;
+                    if (delta < 0) {
+                        sinceImprovement = 0;
+                    }
+                }
+            }
+        }
+
+        void swap(int i, int j) {
+            int slotI = slotOf[i];
+            int slotJ = slotOf[j];
+            members[slotI] = j;
+            members[slotJ] = i;
+            slotOf[i] = slotJ;
+            slotOf[j] = slotI;
+            int team = teamOf[i];
+            teamOf[i] = teamOf[j];
+            teamOf[j] = team;
+        }
+    }
+
+    /**
+     * Symmetric bit matrix over dense ids without the diagonal; pair (a, b)
+     * with a > b is bit a(a-1)/2 + b
+     */
+    private static class PairMatrix {
+        private long[] words = new long[16];
+
+        void set(int a, int b) {
+            if (a == b) {
+                return;
+            }
+            long bit = index(a, b);
+            int word = (int) (bit >>> 6);
+            if (word >= words.length) {
+                words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+            }
+            words[word] |= 1L << bit;
+        }
+
+        boolean get(int a, int b) {
+            if (a < 0 || b < 0 || a == b) {
+                return false;
+            }
+            long bit = index(a, b);
+            int word = (int) (bit >>> 6);
+            return word < words.length && (words[word] & (1L << bit)) != 0;
+        }
+
+        private static long index(int a, int b) {
+            int high = Math.max(a, b);
+            int low = Math.min(a, b);
+            return (long) high * (high - 1) / 2 + low;
+        }
+    }
+}
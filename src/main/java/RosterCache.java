@@ -0,0 +1,236 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * On-disk cache of parsed rosters, so repeated runs over the same workbook
+ * skip the OOXML parse.
+ *
+ * There is one cache file per source path, sheet name and roster schema,
+ * since the schema decides which columns become which fields. The file
+ * records the source size and modification time; when either differs from
+ * the workbook on disk the entry is treated as a miss and overwritten on the
+ * next store. Entries are read through a memory-mapped buffer.
+ *
+ * File layout (big-endian): magic, version, source size, source mtime, source
+ * path, sheet name, schema fingerprint (SHA-256 hex), student count,
+ * department dictionary, color dictionary, attribute name dictionary,
+ * then per student: id, regId, name, dept code, color code and one value per
+ * attribute name. Strings are an int byte length (-1 for null) followed by
+ * UTF-8 bytes.
+ */
+public class RosterCache {
+    private static final Logger logger = LoggerFactory.getLogger(RosterCache.class);
+    private static final int MAGIC = 0x53545243; // "STRC"
+    // 2: header-mapped columns and cached formula results, schema in the key
+    // 3: extra-column attributes
+    private static final int VERSION = 3;
+    private static final String FIRST_SHEET = "\u0000first";
+
+    private final File cacheDir;
+
+    public RosterCache() {
+        this(new File(System.getProperty("java.io.tmpdir"), "student-team-cache"));
+    }
+
+    public RosterCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Load the cached roster for a workbook and sheet
+     *
+     * @param filePath  Path to the source workbook
+     * @param sheetName Sheet name (null for first sheet)
+     * @param schema    Schema the roster is decoded with
+     * @return Cached roster, or null if there is no up-to-date entry
+     * @throws IOException If the source workbook cannot be inspected
+     */
+    public CompactRoster load(String filePath, String sheetName, RosterSchema schema) throws IOException {
+        File source = new File(filePath);
+        String schemaKey = schemaKey(schema);
+        File entry = entryFile(source, sheetName, schemaKey);
+        if (!entry.isFile()) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(entry.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                logger.info("Ignoring roster cache entry with unknown format: {}", entry);
+                return null;
+            }
+            long size = buffer.getLong();
+            long modified = buffer.getLong();
+            String path = readString(buffer);
+            String sheet = readString(buffer);
+            String schemaHash = readString(buffer);
+            if (size != source.length() || modified != source.lastModified()
+                    || !source.getCanonicalPath().equals(path) || !sheetKey(sheetName).equals(sheet)
+                    || !schemaKey.equals(schemaHash)) {
+                logger.info("Roster cache entry is stale for {}", filePath);
+                return null;
+            }
+
+            int count = buffer.getInt();
+            String[] depts = readDictionary(buffer);
+            String[] colors = readDictionary(buffer);
+            String[] attributeNames = readDictionary(buffer);
+
+            CompactRoster roster = new CompactRoster();
+            for (int i = 0; i < count; i++) {
+                String id = readString(buffer);
+                String regId = readString(buffer);
+                String name = readString(buffer);
+                int dept = buffer.getInt();
+                int color = buffer.getInt();
+                roster.add(id, regId, name, dept >= 0 ? depts[dept] : null, color >= 0 ? colors[color] : null);
+                for (String attributeName : attributeNames) {
+                    String value = readString(buffer);
+                    if (value != null) {
+                        roster.setAttribute(i, attributeName, value);
+                    }
+                }
+            }
+
+            logger.info("Loaded {} students from roster cache {}", count, entry);
+            return roster;
+        } catch (RuntimeException e) {
+            // Truncated or corrupt entry: treat as a miss
+            logger.warn("Unreadable roster cache entry {}: {}", entry, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Store a parsed roster for a workbook and sheet, replacing any previous
+     * entry
+     *
+     * @param filePath  Path to the source workbook
+     * @param sheetName Sheet name (null for first sheet)
+     * @param schema    Schema the roster was decoded with
+     * @param roster    Parsed roster
+     * @throws IOException If the entry cannot be written
+     */
+    public void store(String filePath, String sheetName, RosterSchema schema, CompactRoster roster)
+            throws IOException {
+        File source = new File(filePath);
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            throw new IOException("Cannot create roster cache directory: " + cacheDir);
+        }
+        String schemaKey = schemaKey(schema);
+        File entry = entryFile(source, sheetName, schemaKey);
+        Path tmp = Files.createTempFile(cacheDir.toPath(), entry.getName(), ".tmp");
+
+        try (OutputStream os = Files.newOutputStream(tmp);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(source.length());
+            out.writeLong(source.lastModified());
+            writeString(out, source.getCanonicalPath());
+            writeString(out, sheetKey(sheetName));
+            writeString(out, schemaKey);
+
+            out.writeInt(roster.size());
+            out.writeInt(roster.getDeptCount());
+            for (int c = 0; c < roster.getDeptCount(); c++) {
+                writeString(out, roster.getDeptByCode(c));
+            }
+            out.writeInt(roster.getColorCount());
+            for (int c = 0; c < roster.getColorCount(); c++) {
+                writeString(out, roster.getColorByCode(c));
+            }
+            out.writeInt(roster.getAttributeCount());
+            for (int c = 0; c < roster.getAttributeCount(); c++) {
+                writeString(out, roster.getAttributeName(c));
+            }
+
+            for (int i = 0; i < roster.size(); i++) {
+                writeString(out, roster.getId(i));
+                writeString(out, roster.getRegId(i));
+                writeString(out, roster.getName(i));
+                out.writeInt(roster.getDeptCode(i));
+                out.writeInt(roster.getColorCode(i));
+                for (int c = 0; c < roster.getAttributeCount(); c++) {
+                    writeString(out, roster.getAttribute(i, c));
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, entry.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Stored {} students in roster cache {}", roster.size(), entry);
+    }
+
+    private File entryFile(File source, String sheetName, String schemaKey) throws IOException {
+        String key = source.getCanonicalPath() + '\u0000' + sheetKey(sheetName) + '\u0000' + schemaKey;
+        return new File(cacheDir, sha256(key).substring(0, 32) + ".roster");
+    }
+
+    private static String sheetKey(String sheetName) {
+        return sheetName != null ? sheetName : FIRST_SHEET;
+    }
+
+    private static String schemaKey(RosterSchema schema) {
+        return sha256(schema.fingerprint());
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        String[] values = new String[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(buffer);
+        }
+        return values;
+    }
+}
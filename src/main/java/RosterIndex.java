@@ -0,0 +1,269 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Duplicate and conflict filter that sits between a roster reader and its
+ * destination, building an id and regId index as rows arrive.
+ *
+ * Both keys go into open-addressing hash tables (linear probing, int slots
+ * holding position + 1), so every check and lookup is O(1) and the whole
+ * roster is checked in the same pass that reads it. The first row for an id
+ * or regId wins; later rows that repeat either key are not forwarded and are
+ * recorded as conflicts:
+ * - DUPLICATE_ROW: same id, regId, name, department and color as the first
+ * - ID_CONFLICT: same id but different details
+ * - REG_ID_CONFLICT: different id but the same (non-empty) regId
+ *
+ * Positions returned by the lookups are the order in which students were
+ * forwarded, which is their index in the destination list or roster.
+ */
+public class RosterIndex implements Consumer<Student> {
+    private static final Logger logger = LoggerFactory.getLogger(RosterIndex.class);
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int LOGGED_CONFLICTS = 20;
+
+    public enum ConflictType {
+        DUPLICATE_ROW, ID_CONFLICT, REG_ID_CONFLICT
+    }
+
+    private final Consumer<Student> destination;
+
+    // Keys and details of forwarded students by position
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private String[] regIds = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private String[] depts = new String[INITIAL_CAPACITY];
+    private String[] colors = new String[INITIAL_CAPACITY];
+    private int size;
+    private int records;
+
+    // Hash tables: slot holds position + 1, 0 is empty; at most half full
+    private int[] idSlots = new int[INITIAL_CAPACITY * 2];
+    private int[] regIdSlots = new int[INITIAL_CAPACITY * 2];
+
+    private final List<Conflict> conflicts = new ArrayList<>();
+
+    /**
+     * @param destination Receives every student that does not repeat an
+     *                    earlier id or regId
+     */
+    public RosterIndex(Consumer<Student> destination) {
+        this.destination = destination;
+    }
+
+    /**
+     * Check one student read from the roster and forward it if its keys are
+     * new
+     */
+    @Override
+    public void accept(Student student) {
+        records++;
+        String id = student.getId();
+        String regId = emptyToNull(student.getRegId());
+
+        int existing = find(idSlots, ids, id);
+        if (existing >= 0) {
+            boolean sameRow = Objects.equals(regIds[existing], regId)
+                    && Objects.equals(names[existing], student.getName())
+                    && Objects.equals(depts[existing], student.getDept())
+                    && Objects.equals(colors[existing], student.getColor());
+            conflicts.add(new Conflict(sameRow ? ConflictType.DUPLICATE_ROW : ConflictType.ID_CONFLICT, id,
+                    existing, records));
+            return;
+        }
+        if (regId != null) {
+            existing = find(regIdSlots, regIds, regId);
+            if (existing >= 0) {
+                conflicts.add(new Conflict(ConflictType.REG_ID_CONFLICT, regId, existing, records));
+                return;
+            }
+        }
+
+        if (size == ids.length) {
+            grow();
+        }
+        ids[size] = id;
+        regIds[size] = regId;
+        names[size] = student.getName();
+        depts[size] = student.getDept();
+        colors[size] = student.getColor();
+        insert(idSlots, id, size);
+        if (regId != null) {
+            insert(regIdSlots, regId, size);
+        }
+        size++;
+        destination.accept(student);
+    }
+
+    /**
+     * @return Position of the student with this id, or -1
+     */
+    public int indexOfId(String id) {
+        return id != null ? find(idSlots, ids, id) : -1;
+    }
+
+    /**
+     * @return Position of the student with this regId, or -1
+     */
+    public int indexOfRegId(String regId) {
+        regId = emptyToNull(regId);
+        return regId != null ? find(regIdSlots, regIds, regId) : -1;
+    }
+
+    /**
+     * @return Number of students forwarded
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Number of records checked, forwarded or not
+     */
+    public int getRecordCount() {
+        return records;
+    }
+
+    public boolean hasConflicts() {
+        return !conflicts.isEmpty();
+    }
+
+    /**
+     * @return Skipped rows in reading order
+     */
+    public List<Conflict> getConflicts() {
+        return Collections.unmodifiableList(conflicts);
+    }
+
+    /**
+     * Log a warning for the skipped rows of a roster, listing the first few
+     */
+    public void logConflicts(String source) {
+        logConflicts(source, LOGGED_CONFLICTS);
+    }
+
+    /**
+     * Log a warning for the skipped rows of a roster, listing at most limit
+     * of them
+     */
+    public void logConflicts(String source, int limit) {
+        if (conflicts.isEmpty()) {
+            return;
+        }
+        logger.warn("Skipped {} duplicate or conflicting records out of {} in {}", conflicts.size(), records, source);
+        for (int i = 0; i < Math.min(limit, conflicts.size()); i++) {
+            logger.warn("  {}", conflicts.get(i));
+        }
+        if (conflicts.size() > limit) {
+            logger.warn("  ... and {} more", conflicts.size() - limit);
+        }
+    }
+
+    private int find(int[] slots, String[] keys, String key) {
+        int mask = slots.length - 1;
+        for (int slot = hash(key) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            int position = slots[slot] - 1;
+            if (key.equals(keys[position])) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private static void insert(int[] slots, String key, int position) {
+        int mask = slots.length - 1;
+        int slot = hash(key) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = position + 1;
+    }
+
+    /**
+     * Double the key arrays and rebuild both tables at the new capacity
+     */
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        regIds = Arrays.copyOf(regIds, capacity);
+        names = Arrays.copyOf(names, capacity);
+        depts = Arrays.copyOf(depts, capacity);
+        colors = Arrays.copyOf(colors, capacity);
+
+        idSlots = new int[capacity * 2];
+        regIdSlots = new int[capacity * 2];
+        for (int i = 0; i < size; i++) {
+            insert(idSlots, ids[i], i);
+            if (regIds[i] != null) {
+                insert(regIdSlots, regIds[i], i);
+            }
+        }
+    }
+
+    private static int hash(String key) {
+        // String hashes cluster in the low bits; spread them before masking
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * A row that repeated the key of an earlier row
+     */
+    public static class Conflict {
+        private final ConflictType type;
+        private final String key;
+        private final int firstPosition;
+        private final int record;
+
+        Conflict(ConflictType type, String key, int firstPosition, int record) {
+            this.type = type;
+            this.key = key;
+            this.firstPosition = firstPosition;
+            this.record = record;
+        }
+
+        public ConflictType getType() {
+            return type;
+        }
+
+        /**
+         * @return The repeated id or regId
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return Position of the student that kept the key
+         */
+        public int getFirstPosition() {
+            return firstPosition;
+        }
+
+        /**
+         * @return 1-based number of the skipped record among all students
+         *         passed to the index. Rows the reader dropped (blank id or
+         *         name, empty rows) are not counted, so this is not a sheet
+         *         row number.
+         */
+        public int getRecord() {
+            return record;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + key + " at record " + record + " (kept student #" + (firstPosition + 1) + ")";
+        }
+    }
+}
@@ -0,0 +1,304 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maps roster header names to Student fields.
+ *
+ * Header names are compared after lower-casing and dropping everything but
+ * letters and digits, so "Reg. No", "REG NO" and "regno" are the same. The
+ * header row is compiled once into a RowDecoder holding a column -> slot
+ * table; readers then store each cell value by slot with a single array
+ * lookup and build the Student from the slot values. Columns that map to no
+ * field are skipped without decoding, unless extra columns are kept, in
+ * which case they become Student attributes under their header name.
+ *
+ * When the header names neither an id nor a name column the roster is read
+ * with the original fixed layout: id, regNo, name, branch, optional color.
+ *
+ * A schema can be loaded from a properties file, one field per line with
+ * comma-separated header names, plus "extras" to keep unmapped columns:
+ *
+ * id = Roll Number, Student ID
+ * name = Full Name
+ * dept = Programme
+ * extras = true
+ */
+public class RosterSchema {
+    private static final Logger logger = LoggerFactory.getLogger(RosterSchema.class);
+
+    /**
+     * Student fields a column can map to; the ordinal is the slot number
+     */
+    public enum Field {
+        ID, REG_NO, NAME, DEPT, COLOR
+    }
+
+    private static final int FIELD_COUNT = Field.values().length;
+
+    private final Map<String, Field> aliases = new HashMap<>();
+    private boolean keepExtraColumns;
+
+    /**
+     * @return Schema recognising common header names for every field
+     */
+    public static RosterSchema defaults() {
+        return new RosterSchema()
+                .alias(Field.ID, "ID", "Student ID")
+                .alias(Field.REG_NO, "RegNo", "Reg No", "RegId", "Registration No", "Registration Number",
+                        "Roll No", "Roll Number")
+                .alias(Field.NAME, "Name", "Student Name", "Full Name")
+                .alias(Field.DEPT, "Dept", "Department", "Branch")
+                .alias(Field.COLOR, "Color", "Colour", "Dress Color", "Dress Colour");
+    }
+
+    /**
+     * Load a schema from a properties file on top of the defaults
+     *
+     * @param path Path to the properties file
+     * @return Schema with the file's header names added
+     * @throws IOException If the file cannot be read
+     */
+    public static RosterSchema load(String path) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        RosterSchema schema = defaults();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key);
+            if (key.equalsIgnoreCase("extras")) {
+                schema.keepExtraColumns(Boolean.parseBoolean(value.trim()));
+                continue;
+            }
+            Field field = fieldFor(key);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown roster field in " + path + ": " + key);
+            }
+            schema.alias(field, value.split(","));
+        }
+        return schema;
+    }
+
+    /**
+     * Map header names to a field; later mappings of the same name win
+     */
+    public RosterSchema alias(Field field, String... headers) {
+        for (String header : headers) {
+            String key = normalize(header);
+            if (!key.isEmpty()) {
+                aliases.put(key, field);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Keep columns that map to no field as Student attributes
+     */
+    public RosterSchema keepExtraColumns(boolean keepExtraColumns) {
+        this.keepExtraColumns = keepExtraColumns;
+        return this;
+    }
+
+    /**
+     * @return Canonical text of the header mappings and the extras flag; two
+     *         schemas with the same fingerprint decode every roster the same
+     */
+    public String fingerprint() {
+        StringBuilder sb = new StringBuilder("extras=").append(keepExtraColumns);
+        for (Map.Entry<String, Field> entry : new TreeMap<>(aliases).entrySet()) {
+            sb.append(';').append(entry.getKey()).append('=').append(entry.getValue().name());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Compile the header row into a decoder
+     *
+     * @param headers Header cell text by column index (null for blank cells)
+     * @return Decoder for the data rows
+     */
+    public RowDecoder compile(List<String> headers) {
+        int[] slotByColumn = new int[headers.size()];
+        int[] columnBySlot = new int[FIELD_COUNT];
+        Arrays.fill(columnBySlot, -1);
+        List<String> extraNames = new ArrayList<>();
+
+        for (int col = 0; col < headers.size(); col++) {
+            String header = headers.get(col);
+            Field field = header != null ? aliases.get(normalize(header)) : null;
+            if (field != null && columnBySlot[field.ordinal()] < 0) {
+                slotByColumn[col] = field.ordinal();
+                columnBySlot[field.ordinal()] = col;
+            } else if (keepExtraColumns && header != null && !header.trim().isEmpty()) {
+                slotByColumn[col] = FIELD_COUNT + extraNames.size();
+                extraNames.add(header.trim());
+            } else {
+                slotByColumn[col] = -1;
+            }
+        }
+
+        if (columnBySlot[Field.ID.ordinal()] < 0 || columnBySlot[Field.NAME.ordinal()] < 0) {
+            logger.info("Header {} has no id or no name column, using the fixed column layout", headers);
+            return positional();
+        }
+        logger.info("Compiled roster header: {}", describe(headers, slotByColumn));
+        return new RowDecoder(slotByColumn, extraNames.toArray(new String[0]));
+    }
+
+    /**
+     * @return Decoder for the fixed layout: id, regNo, name, branch, color
+     */
+    public static RowDecoder positional() {
+        return new RowDecoder(new int[] { Field.ID.ordinal(), Field.REG_NO.ordinal(), Field.NAME.ordinal(),
+                Field.DEPT.ordinal(), Field.COLOR.ordinal() }, new String[0]);
+    }
+
+    private static Field fieldFor(String key) {
+        String normalized = normalize(key);
+        for (Field field : Field.values()) {
+            if (normalize(field.name()).equals(normalized)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    private static String normalize(String header) {
+        StringBuilder sb = new StringBuilder(header.length());
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static String describe(List<String> headers, int[] slotByColumn) {
+        StringBuilder sb = new StringBuilder();
+        for (int col = 0; col < slotByColumn.length; col++) {
+            int slot = slotByColumn[col];
+            if (slot < 0) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(headers.get(col)).append(" -> ")
+                    .append(slot < FIELD_COUNT ? Field.values()[slot].name() : "attribute");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decodes data rows for one compiled header. Readers ask slotOf(column)
+     * for each cell, store the text in a String[getSlotCount()] by slot and
+     * call toStudent once the row ends.
+     */
+    public static class RowDecoder {
+        private final int[] slotByColumn;
+        private final String[] extraNames;
+        private final int[] mappedColumns;
+
+        RowDecoder(int[] slotByColumn, String[] extraNames) {
+            this.slotByColumn = slotByColumn;
+            this.extraNames = extraNames;
+            int mapped = 0;
+            for (int slot : slotByColumn) {
+                if (slot >= 0) {
+                    mapped++;
+                }
+            }
+            mappedColumns = new int[mapped];
+            for (int col = 0, k = 0; col < slotByColumn.length; col++) {
+                if (slotByColumn[col] >= 0) {
+                    mappedColumns[k++] = col;
+                }
+            }
+        }
+
+        /**
+         * @return Slot for a column, or -1 if its values are not needed
+         */
+        public int slotOf(int column) {
+            return column < slotByColumn.length ? slotByColumn[column] : -1;
+        }
+
+        /**
+         * @return Column holding the field, or -1 if no column maps to it
+         */
+        public int columnOf(Field field) {
+            for (int col = 0; col < slotByColumn.length; col++) {
+                if (slotByColumn[col] == field.ordinal()) {
+                    return col;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return Columns that map to a slot, in column order
+         */
+        public int[] getMappedColumns() {
+            return mappedColumns.clone();
+        }
+
+        /**
+         * @return Length of the per-row value array
+         */
+        public int getSlotCount() {
+            return FIELD_COUNT + extraNames.length;
+        }
+
+        /**
+         * Build a student from one row's values and clear them for the next
+         * row. Rows without an id or name yield null; a missing color cell
+         * leaves the color unset.
+         *
+         * @param values Cell text by slot (null for absent cells)
+         * @return Student, or null if the row is skipped
+         */
+        public Student toStudent(String[] values) {
+            String id = trimmed(values[Field.ID.ordinal()]);
+            String name = trimmed(values[Field.NAME.ordinal()]);
+            Student student = null;
+            if (id != null && name != null && !id.isEmpty() && !name.isEmpty()) {
+                String regNo = trimmed(values[Field.REG_NO.ordinal()]);
+                String dept = trimmed(values[Field.DEPT.ordinal()]);
+                student = new Student(id, regNo != null ? regNo : "", name, dept != null ? dept : "");
+                String color = values[Field.COLOR.ordinal()];
+                if (color != null) {
+                    student.setColor(color.trim());
+                }
+                for (int e = 0; e < extraNames.length; e++) {
+                    String value = values[FIELD_COUNT + e];
+                    if (value != null) {
+                        student.setAttribute(extraNames[e], value.trim());
+                    }
+                }
+            }
+            Arrays.fill(values, null);
+            return student;
+        }
+
+        private static String trimmed(String value) {
+            return value != null ? value.trim() : null;
+        }
+    }
+}
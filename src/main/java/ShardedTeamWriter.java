@@ -0,0 +1,220 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes teams into several output workbooks at once instead of one.
+ *
+ * Teams are split into shards either by fixed team ranges (shard k holds
+ * teams [k*teams/N, (k+1)*teams/N)) or by department (one shard per
+ * department listing its students with their team). Each shard is written
+ * on its own thread through ExcelService, so every shard has its own
+ * workbook and header/data styles. A CSV index next to the output lists
+ * every shard file with its teams and student count.
+ *
+ * Output names derive from the requested output path: teams.xlsx becomes
+ * teams-shard-01.xlsx, teams-shard-02-CSE.xlsx, ... and teams-index.csv.
+ */
+public class ShardedTeamWriter {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedTeamWriter.class);
+    private static final String UNKNOWN_DEPT = "";
+
+    private final ExcelService excelService;
+    private final int shardCount;
+    private final boolean byDept;
+    private final int threads;
+
+    /**
+     * @param excelService Writer used for every shard
+     * @param shardCount   Number of team-range shards (ignored when byDept)
+     * @param byDept       Shard by student department instead of team range
+     * @param threads      Maximum number of shards written at once
+     */
+    public ShardedTeamWriter(ExcelService excelService, int shardCount, boolean byDept, int threads) {
+        this.excelService = excelService;
+        this.shardCount = Math.max(1, shardCount);
+        this.byDept = byDept;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Split teams into shards and write them concurrently, then write the index
+     *
+     * @param teams          List of student teams
+     * @param outputFilePath Requested output path; shard names derive from it
+     * @param streaming      Write shards with the streaming (SXSSF) writer
+     * @return Paths of the written shard workbooks, in shard order
+     * @throws IOException If any shard or the index cannot be written
+     */
+    public List<String> write(List<List<Student>> teams, String outputFilePath, boolean streaming)
+            throws IOException {
+        List<Shard> shards = byDept ? shardByDept(teams, outputFilePath) : shardByTeamRange(teams, outputFilePath);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, shards.size())));
+        try {
+            List<Future<?>> futures = new ArrayList<>(shards.size());
+            for (Shard shard : shards) {
+                futures.add(executor.submit(() -> {
+                    if (streaming) {
+                        excelService.writeTeamsToExcelStreaming(shard.teams, shard.file);
+                    } else {
+                        excelService.writeTeamsToExcel(shard.teams, shard.file);
+                    }
+                    return null;
+                }));
+            }
+
+            // Wait for every shard so no writer is left running, then report the first failure
+            IOException failure = null;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = new IOException("Failed to write shard " + shards.get(i).file + ": "
+                                + e.getCause().getMessage(), e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while writing shards", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        String indexFile = indexPath(outputFilePath);
+        writeIndex(shards, indexFile);
+        logger.info("Wrote {} teams into {} shards, index: {}", teams.size(), shards.size(), indexFile);
+
+        List<String> files = new ArrayList<>(shards.size());
+        for (Shard shard : shards) {
+            files.add(shard.file);
+        }
+        return files;
+    }
+
+    private List<Shard> shardByTeamRange(List<List<Student>> teams, String outputFilePath) {
+        int count = Math.max(1, Math.min(shardCount, teams.size()));
+        List<Shard> shards = new ArrayList<>(count);
+        for (int k = 0; k < count; k++) {
+            int from = (int) ((long) k * teams.size() / count);
+            int to = (int) ((long) (k + 1) * teams.size() / count);
+            shards.add(new Shard(shardPath(outputFilePath, k + 1, count, null), null, teams.subList(from, to)));
+        }
+        return shards;
+    }
+
+    private List<Shard> shardByDept(List<List<Student>> teams, String outputFilePath) {
+        // Per department, the members of each team in team order
+        Map<String, List<List<Student>>> byDept = new LinkedHashMap<>();
+        for (List<Student> team : teams) {
+            Map<String, List<Student>> members = new LinkedHashMap<>();
+            for (Student student : team) {
+                String dept = student.getDept() != null ? student.getDept() : UNKNOWN_DEPT;
+                members.computeIfAbsent(dept, d -> new ArrayList<>()).add(student);
+            }
+            for (Map.Entry<String, List<Student>> entry : members.entrySet()) {
+                byDept.computeIfAbsent(entry.getKey(), d -> new ArrayList<>()).add(entry.getValue());
+            }
+        }
+
+        List<Shard> shards = new ArrayList<>(byDept.size());
+        int k = 1;
+        for (Map.Entry<String, List<List<Student>>> entry : byDept.entrySet()) {
+            shards.add(new Shard(shardPath(outputFilePath, k++, byDept.size(), entry.getKey()), entry.getKey(),
+                    entry.getValue()));
+        }
+        return shards;
+    }
+
+    private static String shardPath(String outputFilePath, int shardNo, int shardTotal, String dept) {
+        int digits = Math.max(2, String.valueOf(shardTotal).length());
+        StringBuilder name = new StringBuilder(baseName(outputFilePath))
+                .append("-shard-").append(String.format("%0" + digits + "d", shardNo));
+        if (dept != null) {
+            name.append('-').append(dept.isEmpty() ? "unknown" : dept.replaceAll("[^A-Za-z0-9_-]", "_"));
+        }
+        return sibling(outputFilePath, name.append(".xlsx").toString());
+    }
+
+    private static String indexPath(String outputFilePath) {
+        return sibling(outputFilePath, baseName(outputFilePath) + "-index.csv");
+    }
+
+    private static String baseName(String outputFilePath) {
+        return new File(outputFilePath).getName().replaceFirst("\\.xlsx$", "");
+    }
+
+    private static String sibling(String outputFilePath, String name) {
+        File parent = new File(outputFilePath).getAbsoluteFile().getParentFile();
+        return new File(parent, name).getPath();
+    }
+
+    /**
+     * Write one CSV line per shard: file, department, team count, student
+     * count, first and last team name
+     */
+    private void writeIndex(List<Shard> shards, String indexFile) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(new File(indexFile).toPath(), StandardCharsets.UTF_8)) {
+            writer.write("File,Dept,Teams,Students,First Team,Last Team\n");
+            for (Shard shard : shards) {
+                int students = 0;
+                for (List<Student> team : shard.teams) {
+                    students += team.size();
+                }
+                writer.write(csv(new File(shard.file).getName()) + ',' + csv(shard.dept) + ','
+                        + shard.teams.size() + ',' + students + ',' + csv(teamName(shard.teams, 0)) + ','
+                        + csv(teamName(shard.teams, shard.teams.size() - 1)) + '\n');
+            }
+        }
+    }
+
+    private static String teamName(List<List<Student>> teams, int index) {
+        if (index < 0 || teams.get(index).isEmpty()) {
+            return null;
+        }
+        return teams.get(index).get(0).getTeam();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    /**
+     * Teams destined for one output workbook
+     */
+    private static class Shard {
+        private final String file;
+        private final String dept;
+        private final List<List<Student>> teams;
+
+        Shard(String file, String dept, List<List<Student>> teams) {
+            this.file = file;
+            this.dept = dept;
+            this.teams = teams;
+        }
+    }
+}
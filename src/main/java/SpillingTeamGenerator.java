@@ -0,0 +1,500 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Random team generation for rosters larger than the heap.
+ *
+ * Each student read gets a random 64-bit key. Students are buffered until
+ * the estimated buffer size reaches half the heap budget; the buffer is then
+ * sorted by key and spilled to a binary run file. Once the roster is read,
+ * the runs are k-way merged by key, which yields the students in uniformly
+ * random order, and the merged stream is cut into teams that go straight to
+ * the streaming writer. When there are more runs than can be merged at once
+ * within the budget, groups of runs are first merged into longer runs. A
+ * roster that fits in one buffer is never written to disk.
+ *
+ * Heap use is bounded by the budget (buffer plus merge read buffers) and the
+ * writer's row window, independent of the roster size. Rows are not checked
+ * for duplicate ids, since that would need an index over the whole roster,
+ * and schema attribute columns are not carried through the run files.
+ *
+ * Run file layout (big-endian): student count, then per student: key, id,
+ * regId, name, dept, color. Strings are an int byte length (-1 for null)
+ * followed by UTF-8 bytes.
+ */
+public class SpillingTeamGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(SpillingTeamGenerator.class);
+
+    // Low key bits hold the buffer position, so sorting the keys sorts the
+    // buffer. Only the random high bits order students; ties between them keep
+    // read order (by position in a buffer, by run number across runs), so
+    // where the budget cuts runs never changes the result.
+    private static final int POSITION_BITS = 24;
+    private static final long POSITION_MASK = (1L << POSITION_BITS) - 1;
+    private static final int MAX_BUFFERED = 1 << POSITION_BITS;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int DEFAULT_TEAM_SIZE = 10;
+
+    private static final int IO_BUFFER_SIZE = 1 << 16;
+    private static final int MAX_FAN_IN = 128;
+
+    // Rough heap cost of a buffered student and of each of its strings
+    private static final int STUDENT_OVERHEAD = 80;
+    private static final int STRING_OVERHEAD = 48;
+
+    private final ExcelService excelService;
+    private final long heapBudget;
+    private final File tempDir;
+
+    // Fixed key seed, null for a fresh seed per run
+    private Long seed;
+
+    /**
+     * @param excelService Reader and writer for the roster and the output
+     * @param heapBudget   Bytes of heap the buffered students and merge
+     *                     buffers may use
+     * @param tempDir      Directory for the run files
+     */
+    public SpillingTeamGenerator(ExcelService excelService, long heapBudget, File tempDir) {
+        this.excelService = excelService;
+        this.heapBudget = Math.max(heapBudget, 4L * IO_BUFFER_SIZE);
+        this.tempDir = tempDir;
+    }
+
+    public SpillingTeamGenerator(ExcelService excelService, long heapBudget) {
+        this(excelService, heapBudget, new File(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * @return A quarter of the maximum heap
+     */
+    public static long defaultHeapBudget() {
+        return Runtime.getRuntime().maxMemory() / 4;
+    }
+
+    /**
+     * Fix the key seed; the same seed gives the same teams for the same input,
+     * whatever the heap budget
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Read, shuffle on disk and write teams
+     *
+     * @param inputFile  Roster workbook or csv/tsv file
+     * @param sheetName  Sheet to read (null for first sheet, ignored for csv)
+     * @param outputFile Output workbook
+     * @param teamSize   Team size (default: 10)
+     * @return Number of students and teams processed
+     * @throws IOException If reading, spilling or writing fails
+     */
+    public PipelinedTeamGenerator.Summary run(String inputFile, String sheetName, String outputFile, int teamSize)
+            throws IOException {
+        if (teamSize <= 0) {
+            teamSize = DEFAULT_TEAM_SIZE;
+        }
+        SplittableRandom random = seed != null ? new SplittableRandom(seed) : new SplittableRandom();
+        Path workDir = Files.createTempDirectory(tempDir.toPath(), "team-spill-");
+        try {
+            Spiller spiller = new Spiller(workDir, random);
+            try {
+                read(inputFile, sheetName, spiller);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            if (spiller.count == 0) {
+                logger.warn("No students read from {}; {} not written", inputFile, outputFile);
+                return new PipelinedTeamGenerator.Summary(0, 0);
+            }
+
+            Iterator<Student> shuffled;
+            List<Run> runs = spiller.runs;
+            if (runs.isEmpty()) {
+                logger.info("Read {} students within the heap budget, nothing spilled", spiller.count);
+                shuffled = spiller.drain();
+            } else {
+                spiller.spill();
+                logger.info("Read {} students into {} spilled runs (budget {} MB)", spiller.count, runs.size(),
+                        heapBudget >> 20);
+                int fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, heapBudget / (2L * IO_BUFFER_SIZE)));
+                while (runs.size() > fanIn) {
+                    runs = mergePass(runs, fanIn, workDir);
+                }
+                shuffled = new RunMerger(runs);
+            }
+
+            int teams;
+            try {
+                teams = excelService.writeTeamsToExcelStreaming(new TeamIterator(shuffled, teamSize), outputFile);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                if (shuffled instanceof RunMerger) {
+                    ((RunMerger) shuffled).close();
+                }
+            }
+
+            logger.info("Spilled {} students into {} teams: {}", spiller.count, teams, outputFile);
+            return new PipelinedTeamGenerator.Summary(spiller.count, teams);
+        } finally {
+            deleteDirectory(workDir);
+        }
+    }
+
+    private void read(String inputFile, String sheetName, Consumer<Student> consumer) throws IOException {
+        if (DelimitedRosterReader.isDelimitedFile(inputFile)) {
+            DelimitedRosterReader.forFile(inputFile, excelService.getSchema()).readStudents(inputFile, consumer);
+        } else {
+            excelService.readStudentsStreaming(inputFile, sheetName, consumer);
+        }
+    }
+
+    /**
+     * Merge groups of fanIn runs into single runs
+     */
+    private List<Run> mergePass(List<Run> runs, int fanIn, Path workDir) throws IOException {
+        List<Run> merged = new ArrayList<>((runs.size() + fanIn - 1) / fanIn);
+        for (int from = 0; from < runs.size(); from += fanIn) {
+            List<Run> group = runs.subList(from, Math.min(from + fanIn, runs.size()));
+            int count = 0;
+            for (Run run : group) {
+                count += run.count;
+            }
+            Run target = new Run(Files.createTempFile(workDir, "merged-", ".run"), count);
+            try (RunMerger merger = new RunMerger(group);
+                    DataOutputStream out = target.openWriter()) {
+                while (merger.hasNext()) {
+                    long key = merger.peekKey();
+                    writeRecord(out, key, merger.next());
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            for (Run run : group) {
+                Files.deleteIfExists(run.file);
+            }
+            merged.add(target);
+        }
+        logger.info("Merged {} runs into {}", runs.size(), merged.size());
+        return merged;
+    }
+
+    private static long estimateSize(Student student) {
+        return STUDENT_OVERHEAD + stringSize(student.getId()) + stringSize(student.getRegId())
+                + stringSize(student.getName()) + stringSize(student.getDept()) + stringSize(student.getColor());
+    }
+
+    private static long stringSize(String value) {
+        return value != null ? STRING_OVERHEAD + value.length() : 0;
+    }
+
+    private static void writeRecord(DataOutputStream out, long key, Student student) throws IOException {
+        out.writeLong(key);
+        writeString(out, student.getId());
+        writeString(out, student.getRegId());
+        writeString(out, student.getName());
+        writeString(out, student.getDept());
+        writeString(out, student.getColor());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void deleteDirectory(Path dir) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            logger.warn("Could not remove spill directory {}: {}", dir, e.getMessage());
+        }
+    }
+
+    /**
+     * Buffers keyed students and writes a sorted run whenever the buffer
+     * reaches its share of the budget
+     */
+    private class Spiller implements Consumer<Student> {
+        private final Path workDir;
+        private final SplittableRandom random;
+        private final long bufferBudget = heapBudget / 2;
+        private final List<Run> runs = new ArrayList<>();
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private Student[] buffer = new Student[INITIAL_CAPACITY];
+        private int size;
+        private long bufferBytes;
+        private int count;
+
+        Spiller(Path workDir, SplittableRandom random) {
+            this.workDir = workDir;
+            this.random = random;
+        }
+
+        @Override
+        public void accept(Student student) {
+            if (size == buffer.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                buffer = Arrays.copyOf(buffer, size * 2);
+            }
+            keys[size] = (random.nextLong() & ~POSITION_MASK) | size;
+            buffer[size++] = student;
+            bufferBytes += estimateSize(student) + 16;
+            count++;
+
+            if (bufferBytes >= bufferBudget || size == MAX_BUFFERED) {
+                try {
+                    spill();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        /**
+         * Sort the buffer by key and write it as a run
+         */
+        void spill() throws IOException {
+            if (size == 0) {
+                return;
+            }
+            Arrays.sort(keys, 0, size);
+            Run run = new Run(Files.createTempFile(workDir, "run-", ".run"), size);
+            try (DataOutputStream out = run.openWriter()) {
+                for (int i = 0; i < size; i++) {
+                    writeRecord(out, keys[i], buffer[(int) (keys[i] & POSITION_MASK)]);
+                }
+            }
+            runs.add(run);
+            logger.debug("Spilled run {} with {} students", runs.size(), size);
+
+            Arrays.fill(buffer, 0, size, null);
+            size = 0;
+            bufferBytes = 0;
+        }
+
+        /**
+         * @return Buffered students in key order, for rosters that were
+         *         never spilled
+         */
+        Iterator<Student> drain() {
+            Arrays.sort(keys, 0, size);
+            return new Iterator<Student>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public Student next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return buffer[(int) (keys[next++] & POSITION_MASK)];
+                }
+            };
+        }
+    }
+
+    /**
+     * A sorted run file and its student count
+     */
+    private static class Run {
+        private final Path file;
+        private final int count;
+
+        Run(Path file, int count) {
+            this.file = file;
+            this.count = count;
+        }
+
+        DataOutputStream openWriter() throws IOException {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file), IO_BUFFER_SIZE));
+            out.writeInt(count);
+            return out;
+        }
+    }
+
+    /**
+     * Reads one run a record at a time
+     */
+    private static class RunReader {
+        private final int runNo;
+        private final DataInputStream in;
+        private int remaining;
+        private long key;
+        private Student student;
+
+        RunReader(Run run, int runNo) throws IOException {
+            this.runNo = runNo;
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run.file), IO_BUFFER_SIZE));
+            this.remaining = in.readInt();
+        }
+
+        /**
+         * @return False once the run is exhausted
+         */
+        boolean advance() throws IOException {
+            if (remaining == 0) {
+                student = null;
+                return false;
+            }
+            remaining--;
+            try {
+                key = in.readLong();
+                student = new Student(readString(in), readString(in), readString(in), readString(in));
+                student.setColor(readString(in));
+            } catch (EOFException e) {
+                throw new IOException("Truncated spill run", e);
+            }
+            return true;
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * K-way merge of runs by the random part of the key, smallest first; runs
+     * are numbered in read order
+     */
+    private static class RunMerger implements Iterator<Student>, AutoCloseable {
+        private final List<RunReader> readers = new ArrayList<>();
+        private final PriorityQueue<RunReader> heads = new PriorityQueue<>(
+                Comparator.comparingLong((RunReader r) -> r.key >> POSITION_BITS).thenComparingInt(r -> r.runNo));
+
+        RunMerger(List<Run> runs) throws IOException {
+            try {
+                for (Run run : runs) {
+                    RunReader reader = new RunReader(run, readers.size());
+                    readers.add(reader);
+                    if (reader.advance()) {
+                        heads.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        long peekKey() {
+            return heads.peek().key;
+        }
+
+        @Override
+        public Student next() {
+            RunReader head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            Student student = head.student;
+            try {
+                if (head.advance()) {
+                    heads.add(head);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return student;
+        }
+
+        @Override
+        public void close() {
+            for (RunReader reader : readers) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    logger.debug("Could not close spill run: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Cuts a student stream into named teams of teamSize, the last one
+     * possibly smaller
+     */
+    private static class TeamIterator implements Iterator<List<Student>> {
+        private final Iterator<Student> students;
+        private final int teamSize;
+        private int teamNo;
+
+        TeamIterator(Iterator<Student> students, int teamSize) {
+            this.students = students;
+            this.teamSize = teamSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return students.hasNext();
+        }
+
+        @Override
+        public List<Student> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            String teamName = "Team_" + teamNo++;
+            List<Student> team = new ArrayList<>(teamSize);
+            while (team.size() < teamSize && students.hasNext()) {
+                Student student = students.next();
+                student.setTeam(teamName);
+                team.add(student);
+            }
+            return team;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Students grouped into strata by a key, for services that spread every
+ * stratum (a color, a department) evenly across teams.
+ *
+ * Grouping is a counting sort: keys are dictionary-encoded and counted in one
+ * pass, prefix sums give each stratum its range, and a second pass places the
+ * student indexes. Each stratum is then shuffled with its own random stream
+ * derived from the seed, so a fixed seed gives the same teams whether the
+ * strata are shuffled in parallel or not, and the shuffled strata are dealt
+ * round-robin into teams. All passes are linear.
+ */
+final class Strata {
+    private final List<Student> students;
+    // Student indexes, stratum s at order[offsets[s], offsets[s + 1])
+    private final int[] order;
+    private final int[] offsets;
+    private final int count;
+
+    private Strata(List<Student> students, int[] order, int[] offsets, int count) {
+        this.students = students;
+        this.order = order;
+        this.offsets = offsets;
+        this.count = count;
+    }
+
+    /**
+     * Group students by key, in order of first appearance
+     *
+     * @param students Students to group
+     * @param key      Stratum of a student; must not return null
+     */
+    static Strata group(List<Student> students, Function<Student, String> key) {
+        int n = students.size();
+        Map<String, Integer> keyCodes = new HashMap<>();
+        int[] codes = new int[n];
+        int[] counts = new int[16];
+        for (int i = 0; i < n; i++) {
+            String value = key.apply(students.get(i));
+            Integer code = keyCodes.get(value);
+            if (code == null) {
+                code = keyCodes.size();
+                keyCodes.put(value, code);
+                if (code == counts.length) {
+                    int[] grown = new int[counts.length * 2];
+                    System.arraycopy(counts, 0, grown, 0, counts.length);
+                    counts = grown;
+                }
+            }
+            codes[i] = code;
+            counts[code]++;
+        }
+        int count = keyCodes.size();
+
+        int[] offsets = new int[count + 1];
+        for (int s = 0; s < count; s++) {
+            offsets[s + 1] = offsets[s] + counts[s];
+        }
+        int[] order = new int[n];
+        int[] cursor = new int[count];
+        System.arraycopy(offsets, 0, cursor, 0, count);
+        for (int i = 0; i < n; i++) {
+            order[cursor[codes[i]]++] = i;
+        }
+        return new Strata(students, order, offsets, count);
+    }
+
+    /**
+     * @return Number of distinct keys
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * Shuffle every stratum in place
+     *
+     * @param seed Run seed; stratum s draws from stream s
+     * @param pool Pool to shuffle the strata on in parallel, null to shuffle
+     *             on the calling thread
+     */
+    void shuffle(long seed, ForkJoinPool pool) {
+        if (pool != null && count > 1) {
+            pool.invoke(new ShuffleStrata(order, offsets, 0, count, seed));
+        } else {
+            for (int s = 0; s < count; s++) {
+                shuffleRange(order, offsets[s], offsets[s + 1], PermutationShuffler.random(seed, s));
+            }
+        }
+    }
+
+    /**
+     * Deal the strata round-robin into teams of at most teamSize students,
+     * setting each student's team name
+     *
+     * @param teamSize Maximum team size, positive
+     * @return List of teams, each containing a list of students
+     */
+    List<List<Student>> deal(int teamSize) {
+        int n = order.length;
+        int teamCount = (n + teamSize - 1) / teamSize;
+        List<List<Student>> teams = new ArrayList<>(teamCount);
+        for (int t = 0; t < teamCount; t++) {
+            teams.add(new ArrayList<>(teamSize));
+        }
+        for (int k = 0; k < n; k++) {
+            int teamNo = k % teamCount;
+            Student student = students.get(order[k]);
+            student.setTeam("Team_" + teamNo);
+            teams.get(teamNo).add(student);
+        }
+        return teams;
+    }
+
+    /**
+     * Fisher-Yates shuffle of order[from, to)
+     */
+    private static void shuffleRange(int[] order, int from, int to, SplittableRandom random) {
+        for (int i = to - 1; i > from; i--) {
+            int j = from + random.nextInt(i - from + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    /**
+     * Shuffles strata [fromStratum, toStratum) by splitting the range until a
+     * single stratum remains
+     */
+    private static class ShuffleStrata extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] order;
+        private final int[] offsets;
+        private final int fromStratum;
+        private final int toStratum;
+        private final long seed;
+
+        ShuffleStrata(int[] order, int[] offsets, int fromStratum, int toStratum, long seed) {
+            this.order = order;
+            this.offsets = offsets;
+            this.fromStratum = fromStratum;
+            this.toStratum = toStratum;
+            this.seed = seed;
+        }
+
+        @Override
+        protected void compute() {
+            if (toStratum - fromStratum == 1) {
+                shuffleRange(order, offsets[fromStratum], offsets[toStratum],
+                        PermutationShuffler.random(seed, fromStratum));
+                return;
+            }
+            int mid = (fromStratum + toStratum) >>> 1;
+            invokeAll(new ShuffleStrata(order, offsets, fromStratum, mid, seed),
+                    new ShuffleStrata(order, offsets, mid, toStratum, seed));
+        }
+    }
+}
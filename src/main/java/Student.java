@@ -1,3 +1,6 @@
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Student model class to represent student details
@@ -8,6 +11,10 @@ public class Student {
     private String regId;
     private String dept;
     private String team;
+    private String color;
+
+    // Extra roster columns by header name, null until one is set
+    private Map<String, String> attributes;
 
     public Student() {
     }
@@ -85,4 +92,30 @@ public class Student {
     public void setTeam(String team) {
         this.team = team;
     }
-}
\ No newline at end of file
+
+    public String getColor() {
+        return color;
+    }
+
+    public void setColor(String color) {
+        this.color = color;
+    }
+
+    public String getAttribute(String name) {
+        return attributes != null ? attributes.get(name) : null;
+    }
+
+    public void setAttribute(String name, String value) {
+        if (attributes == null) {
+            attributes = new LinkedHashMap<>();
+        }
+        attributes.put(name, value);
+    }
+
+    /**
+     * @return Extra roster columns in column order, empty if there are none
+     */
+    public Map<String, String> getAttributes() {
+        return attributes != null ? Collections.unmodifiableMap(attributes) : Collections.emptyMap();
+    }
+}
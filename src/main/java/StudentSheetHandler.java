@@ -0,0 +1,215 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.xssf.model.SharedStrings;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * SAX handler that turns the XML of a single worksheet into Student objects,
+ * one row at a time, without building the workbook in memory.
+ *
+ * The first row is the header and is compiled with the RosterSchema into a
+ * row decoder; only cells of mapped columns are converted to text after
+ * that. Value conversion follows ExcelService.readStudentsFromExcel, with
+ * formula cells read from their cached result.
+ */
+public class StudentSheetHandler extends DefaultHandler {
+    private final SharedStrings sharedStrings;
+    private final StylesTable styles;
+    private final RosterSchema schema;
+    private final Consumer<Student> sink;
+
+    // Header cells by column, compiled into the decoder at the first data row
+    private final List<String> headers = new ArrayList<>();
+    private RosterSchema.RowDecoder decoder;
+
+    // Per-row state, reused across rows
+    private String[] rowValues;
+    private int rowIndex = -1;
+    private int lastColumn = -1;
+
+    // Per-cell state
+    private int column;
+    private String cellType;
+    private String cellStyle;
+    private boolean inValue;
+    private boolean inFormula;
+    private boolean inInlineText;
+    private final StringBuilder value = new StringBuilder();
+
+    private int studentCount;
+
+    public StudentSheetHandler(SharedStrings sharedStrings, StylesTable styles, Consumer<Student> sink) {
+        this(sharedStrings, styles, RosterSchema.defaults(), sink);
+    }
+
+    public StudentSheetHandler(SharedStrings sharedStrings, StylesTable styles, RosterSchema schema,
+            Consumer<Student> sink) {
+        this.sharedStrings = sharedStrings;
+        this.styles = styles;
+        this.schema = schema;
+        this.sink = sink;
+    }
+
+    /**
+     * @return Number of students emitted so far
+     */
+    public int getStudentCount() {
+        return studentCount;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        switch (localName) {
+            case "row":
+                String r = attributes.getValue("r");
+                rowIndex = (r != null) ? Integer.parseInt(r) - 1 : rowIndex + 1;
+                lastColumn = -1;
+                if (rowIndex > 0 && decoder == null) {
+                    decoder = schema.compile(headers);
+                    rowValues = new String[decoder.getSlotCount()];
+                }
+                break;
+            case "c":
+                String ref = attributes.getValue("r");
+                column = (ref != null) ? columnIndex(ref) : lastColumn + 1;
+                lastColumn = column;
+                cellType = attributes.getValue("t");
+                cellStyle = attributes.getValue("s");
+                value.setLength(0);
+                break;
+            case "v":
+                inValue = true;
+                break;
+            case "f":
+                inFormula = true;
+                break;
+            case "t":
+                inInlineText = "inlineStr".equals(cellType);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        switch (localName) {
+            case "v":
+                inValue = false;
+                break;
+            case "f":
+                inFormula = false;
+                break;
+            case "t":
+                inInlineText = false;
+                break;
+            case "c":
+                if (rowIndex == 0) {
+                    while (headers.size() <= column) {
+                        headers.add(null);
+                    }
+                    headers.set(column, cellValueAsString());
+                } else {
+                    int slot = decoder.slotOf(column);
+                    if (slot >= 0) {
+                        rowValues[slot] = cellValueAsString();
+                    }
+                }
+                break;
+            case "row":
+                // Skip header row (assuming first row contains headers)
+                if (rowIndex > 0) {
+                    emitRow();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        // Formula text is ignored; the cached result is in <v>
+        if (!inFormula && (inValue || inInlineText)) {
+            value.append(ch, start, length);
+        }
+    }
+
+    private void emitRow() {
+        Student student = decoder.toStudent(rowValues);
+        if (student != null) {
+            sink.accept(student);
+            studentCount++;
+        }
+    }
+
+    private String cellValueAsString() {
+        return cellText(value.toString(), cellType, cellStyle, sharedStrings, styles);
+    }
+
+    /**
+     * Convert raw cell content to string, mirroring
+     * ExcelService.getCellValueAsString; formula cells carry their cached
+     * result with the result's type ("str" for text)
+     *
+     * @param raw       Text of the cell's &lt;v&gt;, or of its inline string
+     * @param cellType  The cell's t attribute (null for numbers)
+     * @param cellStyle The cell's s attribute (null for the default style)
+     */
+    static String cellText(String raw, String cellType, String cellStyle, SharedStrings sharedStrings,
+            StylesTable styles) {
+        if ("s".equals(cellType)) {
+            return raw.isEmpty() ? "" : sharedStrings.getItemAt(Integer.parseInt(raw)).getString();
+        }
+        if ("inlineStr".equals(cellType) || "str".equals(cellType)) {
+            return raw;
+        }
+        if ("b".equals(cellType)) {
+            return String.valueOf("1".equals(raw));
+        }
+        if ("e".equals(cellType) || raw.isEmpty()) {
+            return "";
+        }
+
+        double numericValue = Double.parseDouble(raw);
+        if (isDateFormatted(numericValue, cellStyle, styles)) {
+            return DateUtil.getJavaDate(numericValue).toString();
+        }
+        // Handle numeric values (convert to string without decimal if it's a whole
+        // number)
+        if (numericValue == Math.floor(numericValue)) {
+            return String.valueOf((long) numericValue);
+        } else {
+            return String.valueOf(numericValue);
+        }
+    }
+
+    private static boolean isDateFormatted(double numericValue, String cellStyle, StylesTable styles) {
+        if (cellStyle == null || styles == null || !DateUtil.isValidExcelDate(numericValue)) {
+            return false;
+        }
+        XSSFCellStyle style = styles.getStyleAt(Integer.parseInt(cellStyle));
+        return style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+    }
+
+    /**
+     * Convert a cell reference such as "C12" to a zero-based column index
+     */
+    static int columnIndex(String ref) {
+        int col = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            col = col * 26 + (c - 'A' + 1);
+        }
+        return col - 1;
+    }
+}
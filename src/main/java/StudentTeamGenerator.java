@@ -1,7 +1,12 @@
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,6 +29,40 @@ public class StudentTeamGenerator {
     // adherence to design principles like SOLID.
     private ITeamsService teamService;
 
+    // Use the SAX event model instead of loading the whole workbook
+    private boolean streamingRead;
+
+    // Use the SXSSF workbook with a bounded row window for output
+    private boolean streamingWrite;
+
+    // Hold the roster as columnar arrays instead of Student objects
+    private boolean compactRoster;
+
+    // Overlap reading, assignment and writing on separate threads
+    private boolean pipelined;
+
+    // Heap budget in bytes for the disk-spilling mode, null when disabled
+    private Long spillBudget;
+
+    // Add a Team column to the input workbook instead of writing a new layout
+    private boolean writeBack;
+
+    // Per-phase timing; DISABLED unless a report is requested
+    private PhaseMetrics metrics = PhaseMetrics.DISABLED;
+    private String metricsReportPath;
+
+    // Print team statistics after each run
+    private boolean printStatistics;
+
+    // Fixed shuffle seed, null for a fresh seed per run
+    private Long seed;
+
+    // Writes teams into several workbooks concurrently, null for a single output
+    private ShardedTeamWriter shardWriter;
+
+    // Parsed-roster cache, null when disabled
+    private RosterCache rosterCache;
+
     public StudentTeamGenerator() {
         this.excelService = new ExcelService();
         this.teamService = new RandomTeamsService();
@@ -32,20 +71,198 @@ public class StudentTeamGenerator {
     public static void main(String[] args) {
         StudentTeamGenerator app = new StudentTeamGenerator();
 
-        if (args.length >= 2) {
+        // Options start with "--", everything else is positional
+        List<String> positional = new ArrayList<>();
+        String batchSource = null;
+        String previousAssignment = null;
+        Long seed = null;
+        String shards = null;
+        String schemaFile = null;
+        String historyFiles = null;
+        String strategy = null;
+        Long timeBudget = null;
+        Integer serverPort = null;
+        // Concurrent batch jobs or shard writers
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (String arg : args) {
+            if (arg.equals("--streaming-read")) {
+                app.setStreamingRead(true);
+            } else if (arg.equals("--streaming-write")) {
+                app.setStreamingWrite(true);
+            } else if (arg.startsWith("--metrics=")) {
+                app.enableMetrics(arg.substring("--metrics=".length()));
+            } else if (arg.equals("--metrics-sheet")) {
+                app.excelService.setMetricsSheet(true);
+            } else if (arg.equals("--stats")) {
+                app.setPrintStatistics(true);
+            } else if (arg.equals("--stats-sheet")) {
+                app.excelService.setStatisticsSheet(true);
+            } else if (arg.equals("--pipeline")) {
+                app.setPipelined(true);
+            } else if (arg.equals("--spill")) {
+                app.setSpillBudget(SpillingTeamGenerator.defaultHeapBudget());
+            } else if (arg.startsWith("--spill=")) {
+                // Heap budget in MB
+                app.setSpillBudget(Long.parseLong(arg.substring("--spill=".length())) << 20);
+            } else if (arg.equals("--write-back")) {
+                app.setWriteBack(true);
+            } else if (arg.equals("--compact")) {
+                app.setCompactRoster(true);
+            } else if (arg.equals("--cache")) {
+                app.setRosterCache(new RosterCache());
+            } else if (arg.startsWith("--cache=")) {
+                app.setRosterCache(new RosterCache(new File(arg.substring("--cache=".length()))));
+            } else if (arg.startsWith("--strategy=")) {
+                strategy = arg.substring("--strategy=".length());
+            } else if (arg.startsWith("--time-budget=")) {
+                // Wall-clock budget in ms for the balanced strategy
+                timeBudget = Long.parseLong(arg.substring("--time-budget=".length()));
+            } else if (arg.startsWith("--history=")) {
+                // Comma-separated outputs of earlier rounds, for the fresh strategy
+                historyFiles = arg.substring("--history=".length());
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--update=")) {
+                previousAssignment = arg.substring("--update=".length());
+            } else if (arg.startsWith("--batch=")) {
+                batchSource = arg.substring("--batch=".length());
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.equals("--serve")) {
+                serverPort = TeamServer.DEFAULT_PORT;
+            } else if (arg.startsWith("--serve=")) {
+                serverPort = Integer.parseInt(arg.substring("--serve=".length()));
+            } else if (arg.startsWith("--schema=")) {
+                schemaFile = arg.substring("--schema=".length());
+            } else if (arg.startsWith("--shards=")) {
+                // Number of team-range shards, or "dept" for one shard per department
+                shards = arg.substring("--shards=".length());
+            } else {
+                positional.add(arg);
+            }
+        }
+
+        if (timeBudget != null && !"balanced".equals(strategy)) {
+            System.err.println("Error: --time-budget only applies to --strategy=balanced");
+            return;
+        }
+        if (strategy != null) {
+            try {
+                app.setTeamService(timeBudget != null
+                        ? new BalancedTeamsOptimizerService(timeBudget)
+                        : createTeamService(strategy));
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: " + e.getMessage());
+                return;
+            }
+        }
+
+        if (schemaFile != null) {
+            try {
+                app.excelService.setSchema(RosterSchema.load(schemaFile));
+            } catch (IOException e) {
+                logger.error("Schema error: {}", e.getMessage(), e);
+                System.err.println("Schema error: " + e.getMessage());
+                return;
+            }
+        }
+
+        if (historyFiles != null) {
+            if (!"fresh".equals(strategy)) {
+                System.err.println("Error: --history only applies to --strategy=fresh");
+                return;
+            }
+            try {
+                ((RepeatAvoidingTeamService) app.teamService).loadRounds(app.excelService,
+                        Arrays.asList(historyFiles.split(",")));
+            } catch (IOException e) {
+                logger.error("History error: {}", e.getMessage(), e);
+                System.err.println("History error: " + e.getMessage());
+                return;
+            }
+        }
+
+        if (shards != null) {
+            boolean byDept = shards.equalsIgnoreCase("dept");
+            app.setShardWriter(new ShardedTeamWriter(app.excelService, byDept ? 0 : Integer.parseInt(shards),
+                    byDept, threads));
+        }
+
+        if (seed != null) {
+            // Applied after parsing so it reaches whichever strategy was chosen
+            app.setSeed(seed);
+        }
+
+        if (serverPort != null) {
+            // Server mode: keeps running on the HTTP server's threads
+            TeamServer server = new TeamServer(app.excelService, serverPort, threads);
+            try {
+                server.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+                System.out.printf("Team server listening on http://localhost:%d/teams%n", server.getPort());
+            } catch (IOException e) {
+                logger.error("Server error: {}", e.getMessage(), e);
+                System.err.println("Server error: " + e.getMessage());
+            }
+        } else if (batchSource != null) {
+            // Batch mode: --batch=<dir|manifest> <outputDir> [teamSize]
+            if (previousAssignment != null) {
+                System.err.println("Error: --update applies to a single roster and cannot be used with --batch");
+                return;
+            }
+            String outputDir = positional.size() > 0 ? positional.get(0) : ".";
+            int teamSize = positional.size() > 1 ? Integer.parseInt(positional.get(1)) : 10;
+
+            BatchProcessor batch = new BatchProcessor(app, threads);
+            try {
+                List<BatchProcessor.Job> jobs = batch.loadJobs(batchSource, outputDir, teamSize);
+                List<BatchProcessor.Result> results = batch.run(jobs);
+                System.out.println(BatchProcessor.summarize(results));
+                app.writeMetricsReport();
+            } catch (IOException e) {
+                logger.error("Batch error: {}", e.getMessage(), e);
+                System.err.println("Batch error: " + e.getMessage());
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error: " + e.getMessage());
+            }
+        } else if (positional.size() >= 2) {
             // Command line arguments provided
-            String inputFile = args[0];
-            String outputFile = args[1];
-            String sheetName = args.length > 2 ? args[2] : null;
-            int teamSize = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+            String inputFile = positional.get(0);
+            String outputFile = positional.get(1);
+            String sheetName = positional.size() > 2 ? positional.get(2) : null;
+            int teamSize = positional.size() > 3 ? Integer.parseInt(positional.get(3)) : 10;
 
-            app.processStudentTeams(inputFile, outputFile, sheetName, teamSize);
+            if (previousAssignment != null) {
+                app.updateStudentTeams(inputFile, previousAssignment, outputFile, sheetName, teamSize);
+            } else {
+                app.processStudentTeams(inputFile, outputFile, sheetName, teamSize);
+            }
         } else {
             // Interactive mode
             app.runInteractiveMode();
         }
     }
 
+    /**
+     * Create the team service for a strategy name given on the command line
+     */
+    static ITeamsService createTeamService(String strategy) {
+        switch (strategy) {
+            case "random":
+                return new RandomTeamsService();
+            case "color":
+                return new DressColorTeamService();
+            case "dept":
+                return new DepartmentStratifiedTeamService();
+            case "balanced":
+                return new BalancedTeamsOptimizerService();
+            case "fresh":
+                return new RepeatAvoidingTeamService();
+            default:
+                throw new IllegalArgumentException("Unknown team strategy: " + strategy);
+        }
+    }
+
     /**
      * Run the application in interactive mode
      */
@@ -95,10 +312,63 @@ public class StudentTeamGenerator {
             logger.info("Output file: {}", outputFile);
             logger.info("Sheet name: {}", sheetName != null ? sheetName : "First sheet");
             logger.info("Team size: {}", teamSize);
+            logger.info("Read mode: {}", streamingRead ? "streaming" : "in-memory");
+            logger.info("Write mode: {}", streamingWrite ? "streaming" : "in-memory");
+            checkModes();
+
+            if (pipelined) {
+                // Read, assign and write overlap; always streams both ends
+                System.out.println("Generating teams (pipelined)...");
+                PipelinedTeamGenerator pipeline = new PipelinedTeamGenerator(excelService);
+                if (seed != null) {
+                    pipeline.setSeed(seed);
+                }
+                PipelinedTeamGenerator.Summary summary = pipeline.run(inputFile, sheetName, outputFile, teamSize);
+                if (summary.getStudentCount() == 0) {
+                    System.out.println("No students found in the input file!");
+                    return;
+                }
+                System.out.println("✓ Successfully created team assignments!");
+                System.out.printf("✓ Output file: %s%n", outputFile);
+                System.out.printf("✓ Created %d teams from %d students%n", summary.getTeamCount(),
+                        summary.getStudentCount());
+                writeMetricsReport();
+                return;
+            }
+
+            if (spillBudget != null) {
+                // Shuffle through temporary run files; always streams both ends
+                System.out.println("Generating teams (spilling to disk)...");
+                SpillingTeamGenerator spilling = new SpillingTeamGenerator(excelService, spillBudget);
+                if (seed != null) {
+                    spilling.setSeed(seed);
+                }
+                PipelinedTeamGenerator.Summary summary = spilling.run(inputFile, sheetName, outputFile, teamSize);
+                if (summary.getStudentCount() == 0) {
+                    System.out.println("No students found in the input file!");
+                    return;
+                }
+                System.out.println("✓ Successfully created team assignments!");
+                System.out.printf("✓ Output file: %s%n", outputFile);
+                System.out.printf("✓ Created %d teams from %d students%n", summary.getTeamCount(),
+                        summary.getStudentCount());
+                writeMetricsReport();
+                return;
+            }
 
             // Step 1: Read students from Excel
-            System.out.println("Reading students from Excel file...");
-            List<Student> students = excelService.readStudentsFromExcel(inputFile, sheetName);
+            System.out.println("Reading students from input file...");
+            List<Student> students;
+            CompactRoster roster = null;
+            try (PhaseMetrics.Timer timer = metrics.start("read")) {
+                if (compactRoster) {
+                    roster = readCompactRoster(inputFile, sheetName);
+                    students = roster.asStudents();
+                } else {
+                    students = readStudents(inputFile, sheetName);
+                }
+                timer.setRows(students.size());
+            }
 
             if (students.isEmpty()) {
                 System.out.println("No students found in the Excel file!");
@@ -109,21 +379,33 @@ public class StudentTeamGenerator {
 
             // Step 2: Split students into teams
             System.out.println("Creating teams...");
-            List<List<Student>> teams = teamService.splitIntoTeams(students, teamSize);
+            List<List<Student>> teams;
+            if (roster != null) {
+                try (PhaseMetrics.Timer timer = metrics.start("split")) {
+                    teamService.assignTeams(roster, teamSize);
+                    timer.setRows(roster.size());
+                }
+                teams = roster.teams();
+            } else {
+                teams = splitIntoTeams(students, teamSize);
+            }
 
-            // // Step 3: Display team statistics
-            // System.out.println();
-            // System.out.println(teamService.getTeamStatistics(teams));
-            // System.out.println();
+            // Step 3: Display team statistics
+            if (printStatistics) {
+                System.out.println();
+                System.out.println(teamService.getTeamStatistics(teams));
+            }
 
             // Step 4: Write teams to Excel
             System.out.println("Writing teams to Excel file...");
-            excelService.writeTeamsToExcel(teams, outputFile);
+            List<String> written = writeTeams(teams, inputFile, sheetName, outputFile);
 
             System.out.println("✓ Successfully created team assignments!");
-            System.out.printf("✓ Output file: %s%n", outputFile);
+            printOutputFiles(written);
             System.out.printf("✓ Created %d teams%n", teams.size());
 
+            writeMetricsReport();
+
         } catch (IOException e) {
             logger.error("File operation error: {}", e.getMessage(), e);
             System.err.println("File error: " + e.getMessage());
@@ -133,6 +415,269 @@ public class StudentTeamGenerator {
         }
     }
 
+    /**
+     * Reject mode combinations where one setting would silently be ignored
+     *
+     * @throws IllegalArgumentException If the modes conflict
+     */
+    private void checkModes() {
+        if (pipelined && spillBudget != null) {
+            throw new IllegalArgumentException("--pipeline and --spill are separate modes; choose one");
+        }
+        if (pipelined && !(teamService instanceof RandomTeamsService)) {
+            throw new IllegalArgumentException("--pipeline always assigns random teams and cannot be used with "
+                    + teamService.getClass().getSimpleName());
+        }
+        if (spillBudget != null && !(teamService instanceof RandomTeamsService)) {
+            throw new IllegalArgumentException("--spill always assigns random teams and cannot be used with "
+                    + teamService.getClass().getSimpleName());
+        }
+        if (writeBack && (pipelined || spillBudget != null || shardWriter != null)) {
+            throw new IllegalArgumentException("--write-back updates the input workbook and cannot be combined "
+                    + "with --pipeline, --spill or --shards");
+        }
+    }
+
+    /**
+     * Reject modes that batch jobs cannot honour; batch jobs always read a
+     * Student list and split it with the team service
+     *
+     * @throws IllegalArgumentException If a mode would be ignored
+     */
+    void checkBatchModes() {
+        checkModes();
+        if (pipelined || spillBudget != null || compactRoster) {
+            throw new IllegalArgumentException("--batch cannot be combined with --pipeline, --spill or --compact");
+        }
+    }
+
+    /**
+     * Reject modes an incremental update cannot honour; updates always read a
+     * Student list and place students with IncrementalTeamService
+     *
+     * @throws IllegalArgumentException If a mode would be ignored
+     */
+    private void checkUpdateModes() {
+        checkModes();
+        if (pipelined || spillBudget != null || compactRoster) {
+            throw new IllegalArgumentException("--update cannot be combined with --pipeline, --spill or --compact");
+        }
+        if (!(teamService instanceof RandomTeamsService)) {
+            throw new IllegalArgumentException("--update keeps existing teams and cannot be used with "
+                    + teamService.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Update a previous team assignment for the current roster: students no
+     * longer on the roster are removed, new students are placed, and everyone
+     * else keeps their team
+     */
+    public void updateStudentTeams(String inputFile, String previousFile, String outputFile, String sheetName,
+            int teamSize) {
+        try {
+            logger.info("Starting incremental team update");
+            logger.info("Input file: {}", inputFile);
+            logger.info("Previous assignment: {}", previousFile);
+            logger.info("Output file: {}", outputFile);
+            checkUpdateModes();
+
+            System.out.println("Reading previous team assignment...");
+            List<Student> previous = excelService.readTeamAssignments(previousFile);
+
+            System.out.println("Reading students from Excel file...");
+            List<Student> students = new ArrayList<>();
+            RosterIndex current;
+            try (PhaseMetrics.Timer timer = metrics.start("read")) {
+                current = readStudents(inputFile, sheetName, students);
+                timer.setRows(students.size());
+            }
+
+            // Diff the roster against the previous assignment by id
+            List<Student> kept = new ArrayList<>(previous.size());
+            RosterIndex previousIndex = new RosterIndex(kept::add);
+            previous.forEach(previousIndex);
+            previousIndex.logConflicts(previousFile);
+            // Students still on the roster carry their previous team over to
+            // their current details; those who left stay until removed below
+            List<Student> assigned = new ArrayList<>(kept.size());
+            List<String> removed = new ArrayList<>();
+            for (Student student : kept) {
+                int position = current.indexOfId(student.getId());
+                if (position < 0) {
+                    removed.add(student.getId());
+                    assigned.add(student);
+                } else {
+                    Student currentStudent = students.get(position);
+                    currentStudent.setTeam(student.getTeam());
+                    assigned.add(currentStudent);
+                }
+            }
+            List<Student> added = new ArrayList<>();
+            for (Student student : students) {
+                if (previousIndex.indexOfId(student.getId()) < 0) {
+                    added.add(student);
+                }
+            }
+            System.out.printf("%d students joined, %d students left%n", added.size(), removed.size());
+
+            IncrementalTeamService incremental;
+            List<List<Student>> teams;
+            try (PhaseMetrics.Timer timer = metrics.start("update")) {
+                incremental = new IncrementalTeamService(IncrementalTeamService.groupByTeam(assigned), teamSize);
+                teams = incremental.applyChanges(added, removed);
+                timer.setRows(students.size());
+            }
+
+            System.out.println("Writing teams to Excel file...");
+            List<String> written = writeTeams(teams, inputFile, sheetName, outputFile);
+
+            System.out.println("✓ Successfully updated team assignments!");
+            printOutputFiles(written);
+            System.out.printf("✓ %d teams, %d students placed or moved%n", teams.size(),
+                    incremental.getChangedStudentIds().size());
+
+            writeMetricsReport();
+
+        } catch (IOException e) {
+            logger.error("File operation error: {}", e.getMessage(), e);
+            System.err.println("File error: " + e.getMessage());
+        } catch (Exception e) {
+            logger.error("Unexpected error: {}", e.getMessage(), e);
+            System.err.println("Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Read students using the configured read mode; .csv/.tsv inputs are read
+     * with DelimitedRosterReader and ignore the sheet name
+     */
+    List<Student> readStudents(String inputFile, String sheetName) throws IOException {
+        List<Student> students = new ArrayList<>();
+        readStudents(inputFile, sheetName, students);
+        return students;
+    }
+
+    /**
+     * Read students into a list, skipping rows that repeat an id or regId
+     *
+     * @return Index over the students added, by id and regId
+     */
+    RosterIndex readStudents(String inputFile, String sheetName, List<Student> students) throws IOException {
+        RosterIndex index = new RosterIndex(students::add);
+        if (rosterCache != null) {
+            CompactRoster cached = rosterCache.load(inputFile, sheetName, excelService.getSchema());
+            if (cached != null) {
+                // Cached rosters were checked when stored; this only builds the index
+                cached.asStudents().forEach(index);
+                return index;
+            }
+        }
+
+        readInto(inputFile, sheetName, index, streamingRead);
+        index.logConflicts(inputFile);
+
+        if (rosterCache != null) {
+            rosterCache.store(inputFile, sheetName, excelService.getSchema(), CompactRoster.of(students));
+        }
+        return index;
+    }
+
+    /**
+     * Read students into a compact roster, using the roster cache if enabled
+     */
+    CompactRoster readCompactRoster(String inputFile, String sheetName) throws IOException {
+        CompactRoster roster = rosterCache != null
+                ? rosterCache.load(inputFile, sheetName, excelService.getSchema())
+                : null;
+        if (roster == null) {
+            roster = new CompactRoster();
+            RosterIndex index = new RosterIndex(roster::add);
+            readInto(inputFile, sheetName, index, true);
+            index.logConflicts(inputFile);
+            if (rosterCache != null) {
+                rosterCache.store(inputFile, sheetName, excelService.getSchema(), roster);
+            }
+        }
+        return roster;
+    }
+
+    /**
+     * Read a roster file with the reader for its format, passing each student
+     * to the consumer
+     */
+    private void readInto(String inputFile, String sheetName, Consumer<Student> consumer, boolean streaming)
+            throws IOException {
+        if (DelimitedRosterReader.isDelimitedFile(inputFile)) {
+            DelimitedRosterReader.forFile(inputFile, excelService.getSchema()).readStudents(inputFile, consumer);
+        } else if (streaming) {
+            excelService.readStudentsStreaming(inputFile, sheetName, consumer);
+        } else {
+            excelService.readStudentsFromExcel(inputFile, sheetName, consumer);
+        }
+    }
+
+    /**
+     * Split students with the team service, timed as the "split" phase
+     */
+    List<List<Student>> splitIntoTeams(List<Student> students, int teamSize) {
+        try (PhaseMetrics.Timer timer = metrics.start("split")) {
+            List<List<Student>> teams = teamService.splitIntoTeams(students, teamSize);
+            timer.setRows(students.size());
+            return teams;
+        }
+    }
+
+    /**
+     * Write teams for a roster: into a Team column of the roster workbook in
+     * write-back mode, otherwise with the configured write mode
+     *
+     * @return Paths of the workbooks written
+     */
+    List<String> writeTeams(List<List<Student>> teams, String inputFile, String sheetName, String outputFile)
+            throws IOException {
+        if (!writeBack) {
+            return writeTeams(teams, outputFile);
+        }
+        if (DelimitedRosterReader.isDelimitedFile(inputFile)) {
+            throw new IllegalArgumentException("Write-back needs an .xlsx roster: " + inputFile);
+        }
+        try (PhaseMetrics.Timer timer = metrics.start("write-back")) {
+            int rows = new TeamColumnWriter(excelService.getSchema()).write(inputFile, sheetName, outputFile, teams);
+            timer.setRows(rows);
+        }
+        return Collections.singletonList(outputFile);
+    }
+
+    /**
+     * Write teams using the configured write mode
+     *
+     * @return Paths of the workbooks written: the shard files in shard mode,
+     *         otherwise the output file
+     */
+    List<String> writeTeams(List<List<Student>> teams, String outputFile) throws IOException {
+        if (shardWriter != null) {
+            return shardWriter.write(teams, outputFile, streamingWrite);
+        }
+        if (streamingWrite) {
+            excelService.writeTeamsToExcelStreaming(teams, outputFile);
+        } else {
+            excelService.writeTeamsToExcel(teams, outputFile);
+        }
+        return Collections.singletonList(outputFile);
+    }
+
+    private static void printOutputFiles(List<String> files) {
+        if (files.size() == 1) {
+            System.out.printf("✓ Output file: %s%n", files.get(0));
+            return;
+        }
+        System.out.printf("✓ Output files (%d):%n", files.size());
+        for (String file : files) {
+            System.out.printf("  %s%n", file);
+        }
+    }
+
     /**
      * Process with default parameters (for testing)
      */
@@ -141,4 +686,125 @@ public class StudentTeamGenerator {
         String outputFile = "student_teams.xlsx";
         processStudentTeams(inputFile, outputFile, null, 10);
     }
-}
\ No newline at end of file
+
+    public boolean isStreamingRead() {
+        return streamingRead;
+    }
+
+    public void setStreamingRead(boolean streamingRead) {
+        this.streamingRead = streamingRead;
+    }
+
+    public boolean isStreamingWrite() {
+        return streamingWrite;
+    }
+
+    public void setStreamingWrite(boolean streamingWrite) {
+        this.streamingWrite = streamingWrite;
+    }
+
+    public ITeamsService getTeamService() {
+        return teamService;
+    }
+
+    public void setTeamService(ITeamsService teamService) {
+        this.teamService = teamService;
+        if (seed != null) {
+            teamService.setSeed(seed);
+        }
+    }
+
+    public boolean isCompactRoster() {
+        return compactRoster;
+    }
+
+    public void setCompactRoster(boolean compactRoster) {
+        this.compactRoster = compactRoster;
+    }
+
+    public RosterCache getRosterCache() {
+        return rosterCache;
+    }
+
+    public void setRosterCache(RosterCache rosterCache) {
+        this.rosterCache = rosterCache;
+    }
+
+    public boolean isPipelined() {
+        return pipelined;
+    }
+
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    public boolean isWriteBack() {
+        return writeBack;
+    }
+
+    public void setWriteBack(boolean writeBack) {
+        this.writeBack = writeBack;
+    }
+
+    public Long getSpillBudget() {
+        return spillBudget;
+    }
+
+    /**
+     * Generate teams in disk-spilling mode with the given heap budget in
+     * bytes; null turns it off
+     */
+    public void setSpillBudget(Long spillBudget) {
+        this.spillBudget = spillBudget;
+    }
+
+    /**
+     * Record per-phase metrics and write them as JSON to the given path after
+     * each run
+     */
+    public void enableMetrics(String reportPath) {
+        this.metrics = PhaseMetrics.enabled();
+        this.metricsReportPath = reportPath;
+        excelService.setMetrics(metrics);
+    }
+
+    void writeMetricsReport() throws IOException {
+        if (metricsReportPath != null) {
+            metrics.writeJsonReport(metricsReportPath);
+            System.out.printf("✓ Metrics report: %s%n", metricsReportPath);
+        }
+    }
+
+    /**
+     * Fix the shuffle seed so repeated runs over the same roster produce the
+     * same teams
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+        teamService.setSeed(seed);
+    }
+
+    public Long getSeed() {
+        return seed;
+    }
+
+    public boolean isPrintStatistics() {
+        return printStatistics;
+    }
+
+    public void setPrintStatistics(boolean printStatistics) {
+        this.printStatistics = printStatistics;
+    }
+
+    public ShardedTeamWriter getShardWriter() {
+        return shardWriter;
+    }
+
+    public void setShardWriter(ShardedTeamWriter shardWriter) {
+        this.shardWriter = shardWriter;
+    }
+
+    public PhaseMetrics getMetrics() {
+        return metrics;
+    }
+}
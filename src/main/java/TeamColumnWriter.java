@@ -0,0 +1,582 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * Writes team names into a Team column of the source workbook instead of
+ * building a new one.
+ *
+ * Every part of the xlsx package except the roster sheet is copied entry by
+ * entry without being parsed. The sheet XML is streamed through StAX one row
+ * at a time: each row's student id is decoded like the roster readers do, and
+ * only the Team cell is added, replaced or (for rows without a team) removed;
+ * every other cell, style and sheet setting passes through unchanged. An
+ * existing "Team" or "Team Name" header column is reused, otherwise the
+ * column after the last used one gets a "Team" header; the last used column
+ * comes from the sheet's dimension, or from a scan of every row when the
+ * sheet has none. As in the readers, only row 1 is a header; a sheet that
+ * starts lower is decoded with the fixed column layout and gets a row 1 with
+ * just the Team header. Rows are matched to teams by student id.
+ */
+public class TeamColumnWriter {
+    private static final Logger logger = LoggerFactory.getLogger(TeamColumnWriter.class);
+    private static final String TEAM_HEADER = "Team";
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+
+    private final RosterSchema schema;
+    private final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    private final XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+
+    /**
+     * @param schema Schema used to find the id column, as when reading
+     */
+    public TeamColumnWriter(RosterSchema schema) {
+        this.schema = schema;
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Copy the source workbook with each student's team in the Team column
+     *
+     * @param inputFile  Source roster workbook
+     * @param sheetName  Roster sheet (null for first sheet)
+     * @param outputFile Destination; may be the source itself
+     * @param teams      Teams whose students are matched by id
+     * @return Number of rows given a team
+     * @throws IOException If the workbook cannot be read or written
+     */
+    public int write(String inputFile, String sheetName, String outputFile, List<List<Student>> teams)
+            throws IOException {
+        Map<String, String> teamById = new HashMap<>();
+        for (List<Student> team : teams) {
+            for (Student student : team) {
+                teamById.put(student.getId(), student.getTeam());
+            }
+        }
+
+        File target = new File(outputFile).getAbsoluteFile();
+        Path tmp = Files.createTempFile(target.getParentFile().toPath(), target.getName(), ".tmp");
+        SheetRewriter rewriter;
+        try (OPCPackage pkg = OPCPackage.open(inputFile, PackageAccess.READ);
+                ZipFile source = new ZipFile(inputFile);
+                ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(tmp))) {
+            XSSFReader reader = new XSSFReader(pkg);
+            String sheetEntry = sheetEntry(reader, sheetName);
+            rewriter = new SheetRewriter(new ReadOnlySharedStringsTable(pkg), reader.getStylesTable(), teamById);
+            try (InputStream in = source.getInputStream(source.getEntry(sheetEntry))) {
+                rewriter.sheetLastColumn = lastUsedColumn(in);
+            }
+
+            Enumeration<? extends ZipEntry> entries = source.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                ZipEntry copy = new ZipEntry(entry.getName());
+                copy.setTime(entry.getTime());
+                out.putNextEntry(copy);
+                try (InputStream in = source.getInputStream(entry)) {
+                    if (entry.getName().equals(sheetEntry)) {
+                        rewriter.rewrite(in, out);
+                    } else {
+                        copy(in, out);
+                    }
+                }
+                out.closeEntry();
+            }
+        } catch (OpenXML4JException | SAXException | XMLStreamException e) {
+            Files.deleteIfExists(tmp);
+            throw new IOException("Unable to write teams back into " + inputFile, e);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        logger.info("Wrote teams for {} rows into column {} of {} ({} rows without a team)", rewriter.matched,
+                CellReference.convertNumToColString(rewriter.teamColumn), outputFile, rewriter.unmatched);
+        return rewriter.matched;
+    }
+
+    /**
+     * @return Zip entry name of the roster sheet
+     */
+    private static String sheetEntry(XSSFReader reader, String sheetName)
+            throws IOException, OpenXML4JException {
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (sheets.hasNext()) {
+            InputStream sheet = sheets.next();
+            try {
+                if (sheetName == null || sheetName.equals(sheets.getSheetName())) {
+                    return sheets.getSheetPart().getPartName().getName().substring(1);
+                }
+            } finally {
+                sheet.close();
+            }
+        }
+        throw new IllegalArgumentException("Sheet not found: " + sheetName);
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * @return Last column of the sheet's dimension, or if it has none the
+     *         widest column of any row; -1 for an empty sheet
+     */
+    private int lastUsedColumn(InputStream in) throws XMLStreamException {
+        XMLEventReader reader = inputFactory.createXMLEventReader(in);
+        int last = -1;
+        int column = -1;
+        try {
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (!event.isStartElement()) {
+                    continue;
+                }
+                StartElement start = event.asStartElement();
+                String name = start.getName().getLocalPart();
+                if (name.equals("dimension") && attribute(start, "ref") != null) {
+                    return lastColumn(attribute(start, "ref"));
+                } else if (name.equals("row")) {
+                    column = -1;
+                } else if (name.equals("c")) {
+                    String ref = attribute(start, "r");
+                    column = ref != null ? StudentSheetHandler.columnIndex(ref) : column + 1;
+                    last = Math.max(last, column);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return last;
+    }
+
+    /**
+     * @return Whether a header names the Team column ("Team" or "Team Name")
+     */
+    static boolean isTeamHeader(String header) {
+        String key = header != null ? header.replaceAll("[^A-Za-z0-9]", "") : "";
+        return key.equalsIgnoreCase("team") || key.equalsIgnoreCase("teamname");
+    }
+
+    /**
+     * Streams one sheet, buffering a row at a time. Everything before the end
+     * of the header row is held back so the dimension can be widened once the
+     * Team column is known.
+     */
+    private class SheetRewriter {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final Map<String, String> teamById;
+
+        private int idColumn = -1;
+        private int teamColumn = -1;
+        // True when the Team column is one the header already had
+        private boolean teamColumnExists;
+        private boolean headerDone;
+        private int sheetLastColumn = -1;
+        private int matched;
+        private int unmatched;
+
+        SheetRewriter(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, Map<String, String> teamById) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.teamById = teamById;
+        }
+
+        void rewrite(InputStream in, OutputStream out) throws XMLStreamException {
+            XMLEventReader reader = inputFactory.createXMLEventReader(in);
+            XMLEventWriter writer = outputFactory.createXMLEventWriter(out, "UTF-8");
+            List<XMLEvent> pending = new ArrayList<>();
+            int dimensionAt = -1;
+
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement() && isNamed(event, "row")) {
+                    List<XMLEvent> row = readRow(event, reader);
+                    if (headerDone) {
+                        writeDataRow(row, writer);
+                        continue;
+                    }
+
+                    headerDone = true;
+                    List<Cell> cells = cells(row);
+                    // Like the readers, only row 1 is a header; without one the
+                    // fixed column layout applies and a Team header row is added
+                    boolean hasHeader = rowNumber(row.get(0).asStartElement()) == 1;
+                    boolean added = findColumns(hasHeader ? cells : new ArrayList<>());
+                    if (!hasHeader && !cells.isEmpty()) {
+                        teamColumn = Math.max(teamColumn, cells.get(cells.size() - 1).column + 1);
+                    }
+                    if (added && dimensionAt >= 0) {
+                        pending.set(dimensionAt,
+                                widenDimension(pending.get(dimensionAt).asStartElement(), !hasHeader));
+                    }
+                    flush(pending, writer);
+                    pending = null;
+                    if (!hasHeader) {
+                        writeHeaderRow(row.get(0).asStartElement().getName(), writer);
+                        writeDataRow(row, writer);
+                    } else if (added) {
+                        // Header cell styled like the header cell before it
+                        String style = cells.isEmpty() ? null : cells.get(cells.size() - 1).style;
+                        writeRow(row, cells, TEAM_HEADER, style, writer);
+                    } else {
+                        flush(row, writer);
+                    }
+                    continue;
+                }
+
+                if (pending != null) {
+                    if (event.isStartElement() && isNamed(event, "dimension")) {
+                        dimensionAt = pending.size();
+                    }
+                    pending.add(event);
+                    // A sheet without rows: nothing to add, copy it as it is
+                    if (event.isEndDocument()) {
+                        flush(pending, writer);
+                    }
+                } else {
+                    writer.add(event);
+                }
+            }
+            writer.flush();
+            writer.close();
+        }
+
+        private List<XMLEvent> readRow(XMLEvent start, XMLEventReader reader) throws XMLStreamException {
+            List<XMLEvent> row = new ArrayList<>();
+            row.add(start);
+            while (true) {
+                XMLEvent event = reader.nextEvent();
+                row.add(event);
+                if (event.isEndElement() && "row".equals(event.asEndElement().getName().getLocalPart())) {
+                    return row;
+                }
+            }
+        }
+
+        /**
+         * Locate the id column and the Team column from the header row
+         *
+         * @return True if the Team column is new
+         */
+        private boolean findColumns(List<Cell> cells) {
+            List<String> headers = new ArrayList<>();
+            int lastColumn = -1;
+            for (Cell cell : cells) {
+                while (headers.size() <= cell.column) {
+                    headers.add(null);
+                }
+                headers.set(cell.column, cell.text);
+                lastColumn = Math.max(lastColumn, cell.column);
+                if (teamColumn < 0 && isTeamHeader(cell.text)) {
+                    teamColumn = cell.column;
+                }
+            }
+            idColumn = schema.compile(headers).columnOf(RosterSchema.Field.ID);
+            if (teamColumn >= 0) {
+                teamColumnExists = true;
+                return false;
+            }
+            teamColumn = Math.max(lastColumn, sheetLastColumn) + 1;
+            return true;
+        }
+
+        private String idText(List<Cell> cells) {
+            for (Cell cell : cells) {
+                if (cell.column == idColumn) {
+                    return cell.text.trim();
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Find the cells of a buffered row with their position, column and
+         * decoded text
+         */
+        private List<Cell> cells(List<XMLEvent> row) {
+            List<Cell> cells = new ArrayList<>();
+            Cell cell = null;
+            StringBuilder raw = new StringBuilder();
+            boolean inText = false;
+            int lastColumn = -1;
+            for (int k = 1; k < row.size() - 1; k++) {
+                XMLEvent event = row.get(k);
+                if (event.isStartElement()) {
+                    StartElement start = event.asStartElement();
+                    String name = start.getName().getLocalPart();
+                    if (name.equals("c")) {
+                        String ref = attribute(start, "r");
+                        int column = ref != null ? StudentSheetHandler.columnIndex(ref) : lastColumn + 1;
+                        lastColumn = column;
+                        cell = new Cell(k, column, attribute(start, "t"), attribute(start, "s"));
+                        raw.setLength(0);
+                    } else if (cell != null) {
+                        // Cached value in <v>, inline strings in <is><t>; formula text in <f> is ignored
+                        inText = name.equals("v") || name.equals("t");
+                    }
+                } else if (event.isCharacters() && inText) {
+                    raw.append(event.asCharacters().getData());
+                } else if (event.isEndElement()) {
+                    String name = event.asEndElement().getName().getLocalPart();
+                    if (name.equals("c") && cell != null) {
+                        cell.end = k;
+                        cell.text = StudentSheetHandler.cellText(raw.toString(), cell.type, cell.style,
+                                sharedStrings, styles);
+                        cells.add(cell);
+                        cell = null;
+                    } else {
+                        inText = false;
+                    }
+                }
+            }
+            return cells;
+        }
+
+        private void writeDataRow(List<XMLEvent> row, XMLEventWriter writer) throws XMLStreamException {
+            List<Cell> cells = cells(row);
+            String team = teamById.get(idText(cells));
+            if (team != null) {
+                matched++;
+            } else {
+                unmatched++;
+            }
+            writeRow(row, cells, team, null, writer);
+        }
+
+        /**
+         * Write a row 1 holding only the Team header, for sheets without a
+         * header row
+         */
+        private void writeHeaderRow(QName rowName, XMLEventWriter writer) throws XMLStreamException {
+            List<Attribute> attributes = new ArrayList<>();
+            attributes.add(eventFactory.createAttribute("r", "1"));
+            writer.add(eventFactory.createStartElement(rowName.getPrefix(), rowName.getNamespaceURI(), "row",
+                    attributes.iterator(), null));
+            writeTeamCell(writer, rowName, 1, TEAM_HEADER, null);
+            writer.add(eventFactory.createEndElement(rowName.getPrefix(), rowName.getNamespaceURI(), "row"));
+        }
+
+        /**
+         * Write a row with the Team cell set to team, or removed when team is
+         * null, leaving the other cells as they were
+         */
+        private void writeRow(List<XMLEvent> row, List<Cell> cells, String team, String style,
+                XMLEventWriter writer) throws XMLStreamException {
+            StartElement rowStart = row.get(0).asStartElement();
+            QName rowName = rowStart.getName();
+            int rowNumber = rowNumber(rowStart);
+            // spans is an optional hint that would no longer cover the row
+            writer.add(withoutAttribute(rowStart, "spans"));
+
+            boolean placed = false;
+            int k = 1;
+            for (Cell cell : cells) {
+                // Whitespace and other content between cells
+                for (; k < cell.start; k++) {
+                    writer.add(row.get(k));
+                }
+                k = cell.end + 1;
+                if (!placed && cell.column >= teamColumn) {
+                    writeTeamCell(writer, rowName, rowNumber, team, style);
+                    placed = true;
+                }
+                if (cell.column == teamColumn) {
+                    if (!teamColumnExists) {
+                        // The sheet's dimension understated its width
+                        throw new IllegalStateException("Row " + rowNumber + " has data in column "
+                                + CellReference.convertNumToColString(teamColumn)
+                                + " outside the sheet's dimension; not overwriting it with the Team column");
+                    }
+                    continue; // replaced
+                }
+                writer.add(withReference(row.get(cell.start).asStartElement(), cell.column, rowNumber));
+                for (int e = cell.start + 1; e <= cell.end; e++) {
+                    writer.add(row.get(e));
+                }
+            }
+            if (!placed) {
+                writeTeamCell(writer, rowName, rowNumber, team, style);
+            }
+            for (; k < row.size(); k++) {
+                writer.add(row.get(k));
+            }
+        }
+
+        private void writeTeamCell(XMLEventWriter writer, QName rowName, int rowNumber, String team, String style)
+                throws XMLStreamException {
+            if (team == null) {
+                return;
+            }
+            String prefix = rowName.getPrefix();
+            String ns = rowName.getNamespaceURI();
+            List<Attribute> attributes = new ArrayList<>();
+            attributes.add(eventFactory.createAttribute("r",
+                    CellReference.convertNumToColString(teamColumn) + rowNumber));
+            if (style != null) {
+                attributes.add(eventFactory.createAttribute("s", style));
+            }
+            attributes.add(eventFactory.createAttribute("t", "inlineStr"));
+
+            writer.add(eventFactory.createStartElement(prefix, ns, "c", attributes.iterator(), null));
+            writer.add(eventFactory.createStartElement(prefix, ns, "is"));
+            writer.add(eventFactory.createStartElement(prefix, ns, "t"));
+            writer.add(eventFactory.createCharacters(team));
+            writer.add(eventFactory.createEndElement(prefix, ns, "t"));
+            writer.add(eventFactory.createEndElement(prefix, ns, "is"));
+            writer.add(eventFactory.createEndElement(prefix, ns, "c"));
+        }
+
+        /**
+         * Give a cell an explicit reference, since a cell inserted before it
+         * would shift an implicit one
+         */
+        private StartElement withReference(StartElement cell, int column, int rowNumber) {
+            if (attribute(cell, "r") != null) {
+                return cell;
+            }
+            List<Attribute> attributes = attributes(cell, null);
+            attributes.add(eventFactory.createAttribute("r", CellReference.convertNumToColString(column) + rowNumber));
+            return eventFactory.createStartElement(cell.getName(), attributes.iterator(), cell.getNamespaces());
+        }
+
+        private StartElement withoutAttribute(StartElement element, String name) {
+            if (attribute(element, name) == null) {
+                return element;
+            }
+            return eventFactory.createStartElement(element.getName(), attributes(element, name).iterator(),
+                    element.getNamespaces());
+        }
+
+        /**
+         * Extend the sheet's dimension ref to the new Team column, and up to
+         * row 1 when a header row is added
+         */
+        private StartElement widenDimension(StartElement dimension, boolean headerRowAdded) {
+            String ref = attribute(dimension, "ref");
+            if (ref == null || (lastColumn(ref) >= teamColumn && !headerRowAdded)) {
+                return dimension;
+            }
+            String[] corners = ref.split(":");
+            CellReference first = new CellReference(corners[0]);
+            CellReference last = new CellReference(corners[corners.length - 1]);
+            String widened = CellReference.convertNumToColString(first.getCol())
+                    + (headerRowAdded ? 1 : first.getRow() + 1) + ":"
+                    + CellReference.convertNumToColString(Math.max(teamColumn, last.getCol()))
+                    + (last.getRow() + 1);
+            List<Attribute> attributes = attributes(dimension, "ref");
+            attributes.add(eventFactory.createAttribute("ref", widened));
+            return eventFactory.createStartElement(dimension.getName(), attributes.iterator(),
+                    dimension.getNamespaces());
+        }
+
+        private int rowNumber(StartElement row) {
+            String r = attribute(row, "r");
+            if (r == null) {
+                throw new IllegalArgumentException("Rows without a row number are not supported");
+            }
+            return Integer.parseInt(r);
+        }
+
+        private void flush(List<XMLEvent> pending, XMLEventWriter writer) throws XMLStreamException {
+            for (XMLEvent event : pending) {
+                writer.add(event);
+            }
+            pending.clear();
+        }
+    }
+
+    private List<Attribute> attributes(StartElement element, String excluded) {
+        List<Attribute> attributes = new ArrayList<>();
+        for (Iterator<?> it = element.getAttributes(); it.hasNext();) {
+            Attribute attribute = (Attribute) it.next();
+            if (!attribute.getName().getLocalPart().equals(excluded)) {
+                attributes.add(attribute);
+            }
+        }
+        return attributes;
+    }
+
+    private static String attribute(StartElement element, String name) {
+        Attribute attribute = element.getAttributeByName(new QName(name));
+        return attribute != null ? attribute.getValue() : null;
+    }
+
+    private static boolean isNamed(XMLEvent event, String localName) {
+        return localName.equals(event.asStartElement().getName().getLocalPart());
+    }
+
+    /**
+     * @return Last column of a range such as "A1:E201", or -1
+     */
+    private static int lastColumn(String ref) {
+        if (ref == null || ref.isEmpty()) {
+            return -1;
+        }
+        String[] corners = ref.split(":");
+        return new CellReference(corners[corners.length - 1]).getCol();
+    }
+
+    /**
+     * A cell of a buffered row: event positions of its start and end, column
+     * and decoded text
+     */
+    private static class Cell {
+        private final int start;
+        private final int column;
+        private final String type;
+        private final String style;
+        private int end;
+        private String text;
+
+        Cell(int start, int column, String type, String style) {
+            this.start = start;
+            this.column = column;
+            this.type = type;
+            this.style = style;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local HTTP service that keeps one warm JVM for many team generations.
+ *
+ * POST /teams with the roster file as the raw request body returns the team
+ * workbook. Query parameters: teamSize (default 10), strategy (random,
+ * color, dept, balanced; default random), sheet, seed, and name (the upload's
+ * file name, whose .csv/.tsv extension selects the delimited reader; xlsx
+ * otherwise). GET /health answers "OK".
+ *
+ * Parsed rosters are kept in a small LRU cache keyed by the SHA-256 of the
+ * upload and the sheet name, so re-posting the same roster skips parsing.
+ * Requests run on a fixed worker pool and the workbook is streamed straight
+ * into the response. The server binds to the loopback address only.
+ *
+ * Example:
+ * curl --data-binary @students.xlsx -o teams.xlsx "http://localhost:8080/teams?teamSize=8&strategy=dept"
+ */
+public class TeamServer {
+    private static final Logger logger = LoggerFactory.getLogger(TeamServer.class);
+    public static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_TEAM_SIZE = 10;
+    private static final int CACHED_ROSTERS = 32;
+    private static final String XLSX_CONTENT_TYPE =
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private final ExcelService excelService;
+    private final int port;
+    private final int threads;
+
+    // Access-ordered, so the eldest entry is the least recently used
+    private final Map<String, CompactRoster> rosters = new LinkedHashMap<String, CompactRoster>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompactRoster> eldest) {
+            return size() > CACHED_ROSTERS;
+        }
+    };
+
+    private HttpServer server;
+    private ExecutorService workers;
+
+    /**
+     * @param excelService Reader and writer shared by all requests
+     * @param port         Port to listen on (0 for any free port)
+     * @param threads      Number of worker threads
+     */
+    public TeamServer(ExcelService excelService, int port, int threads) {
+        this.excelService = excelService;
+        this.port = port;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Bind the port and start serving requests
+     *
+     * @throws IOException If the port cannot be bound
+     */
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        workers = Executors.newFixedThreadPool(threads);
+        server.setExecutor(workers);
+        server.createContext("/teams", this::handleTeams);
+        server.createContext("/health", exchange -> sendText(exchange, 200, "OK"));
+        server.start();
+        logger.info("Team server listening on http://localhost:{}/teams with {} workers", getPort(), threads);
+    }
+
+    /**
+     * Stop accepting requests and wait briefly for running ones
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(1);
+            workers.shutdown();
+            try {
+                workers.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return The bound port, or the configured one before start
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    private void handleTeams(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                sendText(exchange, 405, "Use POST with the roster as the request body");
+                return;
+            }
+
+            long start = System.nanoTime();
+            Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+            int teamSize = params.containsKey("teamSize")
+                    ? Integer.parseInt(params.get("teamSize"))
+                    : DEFAULT_TEAM_SIZE;
+            ITeamsService teamService = StudentTeamGenerator.createTeamService(
+                    params.containsKey("strategy") ? params.get("strategy") : "random");
+            if (params.containsKey("seed")) {
+                teamService.setSeed(Long.parseLong(params.get("seed")));
+            }
+
+            boolean[] cacheHit = new boolean[1];
+            CompactRoster roster = loadRoster(exchange.getRequestBody(), params.get("name"), params.get("sheet"),
+                    cacheHit);
+            if (roster.size() == 0) {
+                sendText(exchange, 400, "No students found in the upload");
+                return;
+            }
+
+            // Fresh Student objects per request, so cached rosters are never mutated
+            List<Student> students = new ArrayList<>(roster.asStudents());
+            List<List<Student>> teams = teamService.splitIntoTeams(students, teamSize);
+
+            exchange.getResponseHeaders().set("Content-Type", XLSX_CONTENT_TYPE);
+            exchange.getResponseHeaders().set("Content-Disposition", "attachment; filename=\"teams.xlsx\"");
+            exchange.getResponseHeaders().set("X-Roster-Cache", cacheHit[0] ? "hit" : "miss");
+            exchange.getResponseHeaders().set("X-Team-Count", String.valueOf(teams.size()));
+            exchange.sendResponseHeaders(200, 0); // chunked
+            try (OutputStream out = exchange.getResponseBody()) {
+                excelService.writeTeamsToExcelStreaming(teams.iterator(), out);
+            }
+
+            logger.info("Served {} students in {} teams ({} cache) in {} ms", students.size(), teams.size(),
+                    cacheHit[0] ? "hit" : "miss", (System.nanoTime() - start) / 1_000_000);
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (Exception e) {
+            logger.error("Team request failed: {}", e.getMessage(), e);
+            sendError(exchange, 500, "Team generation failed: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Spool the upload to a temporary file while hashing it, then return the
+     * cached roster for its content or parse it
+     */
+    private CompactRoster loadRoster(InputStream body, String name, String sheetName, boolean[] cacheHit)
+            throws IOException {
+        boolean delimited = name != null && DelimitedRosterReader.isDelimitedFile(name);
+        String suffix = delimited ? name.substring(name.lastIndexOf('.')) : ".xlsx";
+        Path upload = Files.createTempFile("roster-upload-", suffix);
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (InputStream in = new DigestInputStream(body, digest)) {
+                size = Files.copy(in, upload, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (size == 0) {
+                throw new IllegalArgumentException("Empty upload");
+            }
+
+            String key = hex(digest.digest()) + '\u0000' + suffix + '\u0000' + (sheetName != null ? sheetName : "");
+            synchronized (rosters) {
+                CompactRoster cached = rosters.get(key);
+                if (cached != null) {
+                    cacheHit[0] = true;
+                    return cached;
+                }
+            }
+
+            CompactRoster roster = new CompactRoster();
+            RosterIndex index = new RosterIndex(roster::add);
+            if (delimited) {
+                DelimitedRosterReader.forFile(upload.toString(), excelService.getSchema())
+                        .readStudents(upload.toString(), index);
+            } else {
+                excelService.readStudentsStreaming(upload.toString(), sheetName, index);
+            }
+            index.logConflicts("upload");
+            synchronized (rosters) {
+                rosters.put(key, roster);
+            }
+            return roster;
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws UnsupportedEncodingException {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            params.put(URLDecoder.decode(key, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+        }
+        return params;
+    }
+
+    /**
+     * Report an error, unless the workbook had already started streaming; the
+     * client then sees a truncated response
+     */
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() == -1) {
+            sendText(exchange, status, message);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] bytes = (message != null ? message : "").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
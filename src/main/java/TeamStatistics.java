@@ -0,0 +1,344 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Size, department and diversity statistics for a set of teams.
+ *
+ * Every student is visited once, while building the department histogram of
+ * its team; teams are independent, so large inputs are processed in
+ * parallel. Global figures are then derived from the per-team histograms
+ * only. Per team this reports the size, the department histogram, the
+ * Shannon evenness (entropy divided by its maximum, 1 = all departments
+ * equally present), the Simpson index (chance that two random members are
+ * from different departments) and the total variation distance between the
+ * team's department mix and the overall mix (0 = identical). Globally it
+ * reports size min/max/average/standard deviation, Jain's fairness index of
+ * team sizes (1 = all equal) and the department distribution.
+ */
+public class TeamStatistics {
+    private static final String UNKNOWN_DEPT = "";
+
+    // Inputs with fewer students are processed on the calling thread
+    private static final int PARALLEL_THRESHOLD = 50_000;
+
+    private final List<TeamStats> teams;
+    private final Map<String, Integer> deptCounts = new TreeMap<>();
+    private final int totalStudents;
+    private final int minTeamSize;
+    private final int maxTeamSize;
+    private final double sizeStdDev;
+    private final double sizeFairness;
+    private final double meanEvenness;
+    private final double meanDistance;
+
+    private TeamStatistics(List<TeamStats> teams) {
+        this.teams = Collections.unmodifiableList(teams);
+
+        int total = 0;
+        int min = teams.isEmpty() ? 0 : Integer.MAX_VALUE;
+        int max = 0;
+        double sumSquares = 0;
+        for (TeamStats team : teams) {
+            total += team.size;
+            min = Math.min(min, team.size);
+            max = Math.max(max, team.size);
+            sumSquares += (double) team.size * team.size;
+            for (Map.Entry<String, Integer> entry : team.deptCounts.entrySet()) {
+                deptCounts.merge(entry.getKey(), entry.getValue(), Integer::sum);
+            }
+        }
+        int teamCount = teams.size();
+        double mean = teamCount > 0 ? (double) total / teamCount : 0;
+        this.totalStudents = total;
+        this.minTeamSize = min;
+        this.maxTeamSize = max;
+        this.sizeStdDev = teamCount > 0 ? Math.sqrt(Math.max(0, sumSquares / teamCount - mean * mean)) : 0;
+        this.sizeFairness = sumSquares > 0 ? (double) total * total / (teamCount * sumSquares) : 1;
+
+        double evenness = 0;
+        double distance = 0;
+        for (TeamStats team : teams) {
+            team.evenness = evenness(team, deptCounts.size());
+            team.distance = distanceFromGlobal(team, deptCounts, total);
+            evenness += team.evenness;
+            distance += team.distance;
+        }
+        this.meanEvenness = teamCount > 0 ? evenness / teamCount : 0;
+        this.meanDistance = teamCount > 0 ? distance / teamCount : 0;
+    }
+
+    /**
+     * Compute statistics for teams in one pass over their students
+     *
+     * @param teams List of teams
+     * @return Statistics for the teams
+     */
+    public static TeamStatistics of(List<List<Student>> teams) {
+        long students = 0;
+        for (List<Student> team : teams) {
+            students += team.size();
+        }
+        IntStream indexes = IntStream.range(0, teams.size());
+        if (students >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        return new TeamStatistics(indexes.mapToObj(t -> TeamStats.of(teams.get(t), t))
+                .collect(Collectors.toList()));
+    }
+
+    private static double evenness(TeamStats team, int deptCount) {
+        if (team.size == 0) {
+            return 0;
+        }
+        // A team cannot hold more departments than members
+        int possible = Math.min(deptCount, team.size);
+        if (possible < 2) {
+            return 1;
+        }
+        double entropy = 0;
+        for (int count : team.deptCounts.values()) {
+            double p = (double) count / team.size;
+            entropy -= p * Math.log(p);
+        }
+        return entropy / Math.log(possible);
+    }
+
+    private static double distanceFromGlobal(TeamStats team, Map<String, Integer> global, int total) {
+        if (team.size == 0 || total == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (Map.Entry<String, Integer> entry : global.entrySet()) {
+            Integer count = team.deptCounts.get(entry.getKey());
+            double teamShare = count != null ? (double) count / team.size : 0;
+            sum += Math.abs(teamShare - (double) entry.getValue() / total);
+        }
+        return sum / 2;
+    }
+
+    public List<TeamStats> getTeams() {
+        return teams;
+    }
+
+    /**
+     * @return Student count per department over all teams, by department name
+     */
+    public Map<String, Integer> getDeptCounts() {
+        return Collections.unmodifiableMap(deptCounts);
+    }
+
+    public int getTeamCount() {
+        return teams.size();
+    }
+
+    public int getTotalStudents() {
+        return totalStudents;
+    }
+
+    public int getMinTeamSize() {
+        return minTeamSize;
+    }
+
+    public int getMaxTeamSize() {
+        return maxTeamSize;
+    }
+
+    public double getAverageTeamSize() {
+        return teams.isEmpty() ? 0 : (double) totalStudents / teams.size();
+    }
+
+    public double getSizeStdDev() {
+        return sizeStdDev;
+    }
+
+    public double getSizeFairness() {
+        return sizeFairness;
+    }
+
+    public double getMeanEvenness() {
+        return meanEvenness;
+    }
+
+    public double getMeanDistance() {
+        return meanDistance;
+    }
+
+    /**
+     * @return Global statistics as a formatted string, in the layout of
+     *         ITeamsService.getTeamStatistics
+     */
+    public String format() {
+        if (teams.isEmpty()) {
+            return "No teams created";
+        }
+        StringBuilder distribution = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : deptCounts.entrySet()) {
+            distribution.append(String.format("%n  - %s: %d (%.1f%%)", deptLabel(entry.getKey()), entry.getValue(),
+                    100.0 * entry.getValue() / totalStudents));
+        }
+        return String.format(
+                "Team Statistics:\n" +
+                        "- Total Teams: %d\n" +
+                        "- Total Students: %d\n" +
+                        "- Min Team Size: %d\n" +
+                        "- Max Team Size: %d\n" +
+                        "- Average Team Size: %.2f\n" +
+                        "- Team Size Std Dev: %.2f\n" +
+                        "- Size Fairness (Jain): %.3f\n" +
+                        "- Mean Department Evenness: %.3f\n" +
+                        "- Mean Distance From Overall Mix: %.3f\n" +
+                        "- Departments:%s",
+                teams.size(), totalStudents, minTeamSize, maxTeamSize, getAverageTeamSize(), sizeStdDev,
+                sizeFairness, meanEvenness, meanDistance, distribution);
+    }
+
+    /**
+     * Add a "Team-Stats" sheet: one row per team with its department counts,
+     * followed by the global figures
+     *
+     * @param workbook Workbook to add the sheet to
+     */
+    public void writeSheet(Workbook workbook) {
+        Sheet sheet = workbook.createSheet("Team-Stats");
+        List<String> depts = new ArrayList<>(deptCounts.keySet());
+
+        Row header = sheet.createRow(0);
+        String[] fixed = { "Team Name", "Size", "Departments", "Evenness", "Simpson Index", "Distance From Overall" };
+        for (int col = 0; col < fixed.length; col++) {
+            header.createCell(col).setCellValue(fixed[col]);
+        }
+        for (int d = 0; d < depts.size(); d++) {
+            header.createCell(fixed.length + d).setCellValue(deptLabel(depts.get(d)));
+        }
+
+        int rowNum = 1;
+        for (TeamStats team : teams) {
+            Row row = sheet.createRow(rowNum++);
+            row.createCell(0).setCellValue(team.name);
+            row.createCell(1).setCellValue(team.size);
+            row.createCell(2).setCellValue(team.deptCounts.size());
+            row.createCell(3).setCellValue(team.evenness);
+            row.createCell(4).setCellValue(team.getSimpsonIndex());
+            row.createCell(5).setCellValue(team.distance);
+            for (int d = 0; d < depts.size(); d++) {
+                Integer count = team.deptCounts.get(depts.get(d));
+                row.createCell(fixed.length + d).setCellValue(count != null ? count : 0);
+            }
+        }
+
+        rowNum++;
+        rowNum = summaryRow(sheet, rowNum, "Total Teams", teams.size());
+        rowNum = summaryRow(sheet, rowNum, "Total Students", totalStudents);
+        rowNum = summaryRow(sheet, rowNum, "Min Team Size", minTeamSize);
+        rowNum = summaryRow(sheet, rowNum, "Max Team Size", maxTeamSize);
+        rowNum = summaryRow(sheet, rowNum, "Average Team Size", getAverageTeamSize());
+        rowNum = summaryRow(sheet, rowNum, "Team Size Std Dev", sizeStdDev);
+        rowNum = summaryRow(sheet, rowNum, "Size Fairness (Jain)", sizeFairness);
+        rowNum = summaryRow(sheet, rowNum, "Mean Department Evenness", meanEvenness);
+        rowNum = summaryRow(sheet, rowNum, "Mean Distance From Overall", meanDistance);
+        for (Map.Entry<String, Integer> entry : deptCounts.entrySet()) {
+            rowNum = summaryRow(sheet, rowNum, "Dept " + deptLabel(entry.getKey()), entry.getValue());
+        }
+    }
+
+    private static int summaryRow(Sheet sheet, int rowNum, String label, double value) {
+        Row row = sheet.createRow(rowNum);
+        row.createCell(0).setCellValue(label);
+        row.createCell(1).setCellValue(value);
+        return rowNum + 1;
+    }
+
+    private static String deptLabel(String dept) {
+        return dept.isEmpty() ? "(none)" : dept;
+    }
+
+    /**
+     * Collects teams one at a time, for writers that see each team once
+     */
+    public static class Accumulator {
+        private final List<TeamStats> teams = new ArrayList<>();
+
+        public void add(List<Student> team) {
+            teams.add(TeamStats.of(team, teams.size()));
+        }
+
+        public TeamStatistics build() {
+            return new TeamStatistics(new ArrayList<>(teams));
+        }
+    }
+
+    /**
+     * Statistics of one team
+     */
+    public static class TeamStats {
+        private final String name;
+        private final int size;
+        private final Map<String, Integer> deptCounts;
+        private double evenness;
+        private double distance;
+
+        private TeamStats(String name, int size, Map<String, Integer> deptCounts) {
+            this.name = name;
+            this.size = size;
+            this.deptCounts = deptCounts;
+        }
+
+        static TeamStats of(List<Student> team, int index) {
+            Map<String, Integer> counts = new HashMap<>();
+            String name = null;
+            for (Student student : team) {
+                String dept = student.getDept() != null ? student.getDept() : UNKNOWN_DEPT;
+                counts.merge(dept, 1, Integer::sum);
+                if (name == null) {
+                    name = student.getTeam();
+                }
+            }
+            return new TeamStats(name != null ? name : "Team_" + index, team.size(), counts);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public Map<String, Integer> getDeptCounts() {
+            return Collections.unmodifiableMap(deptCounts);
+        }
+
+        public double getEvenness() {
+            return evenness;
+        }
+
+        /**
+         * @return Probability that two distinct random members come from
+         *         different departments
+         */
+        public double getSimpsonIndex() {
+            if (size < 2) {
+                return 0;
+            }
+            double same = 0;
+            for (int count : deptCounts.values()) {
+                same += (double) count * (count - 1);
+            }
+            return 1 - same / ((double) size * (size - 1));
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class BalancedTeamsOptimizerServiceTest {
+    private static final String[] DEPTS = { "CSE", "ECE", "EEE", "MECH" };
+    private static final String[] COLORS = { "Red", "Blue", "Green" };
+
+    @Test
+    public void swapDeltaMatchesFullRecount() {
+        SplittableRandom random = new SplittableRandom(11);
+        List<Student> students = roster(53, random);
+        BalancedTeamsOptimizerService.Problem problem = new BalancedTeamsOptimizerService.Problem(students, 6);
+
+        int[] teamOf = new int[students.size()];
+        for (int i = 0; i < teamOf.length; i++) {
+            teamOf[i] = i / 6;
+        }
+        int[][] counts = problem.countsFor(teamOf);
+        double cost = problem.cost(counts);
+
+        for (int step = 0; step < 2000; step++) {
+            int i = random.nextInt(teamOf.length);
+            int j = random.nextInt(teamOf.length);
+            if (teamOf[i] == teamOf[j]) {
+                continue;
+            }
+            double delta = problem.swapDelta(counts, teamOf, i, j);
+            problem.applySwap(counts, teamOf, i, j);
+            cost += delta;
+
+            int[][] recounted = problem.countsFor(teamOf);
+            for (int a = 0; a < counts.length; a++) {
+                assertEquals(Arrays.toString(recounted[a]), Arrays.toString(counts[a]));
+            }
+            assertEquals(problem.cost(recounted), cost, 1e-6);
+        }
+    }
+
+    @Test
+    public void keepsTeamSizesAndEveryStudent() {
+        List<Student> students = roster(47, new SplittableRandom(3));
+        BalancedTeamsOptimizerService service = new BalancedTeamsOptimizerService(50, 2);
+        service.setSeed(5L);
+        List<List<Student>> teams = service.splitIntoTeams(students, 10);
+
+        assertEquals(5, teams.size());
+        Map<String, Integer> seen = new HashMap<>();
+        for (int t = 0; t < teams.size(); t++) {
+            assertEquals(t < 4 ? 10 : 7, teams.get(t).size());
+            for (Student student : teams.get(t)) {
+                assertEquals("Team_" + t, student.getTeam());
+                seen.merge(student.getId(), 1, Integer::sum);
+            }
+        }
+        assertEquals(students.size(), seen.size());
+    }
+
+    private static List<Student> roster(int n, SplittableRandom random) {
+        List<Student> students = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Student student = new Student("S" + i, "R" + i, "Name " + i, DEPTS[random.nextInt(DEPTS.length)]);
+            student.setColor(COLORS[random.nextInt(COLORS.length)]);
+            students.add(student);
+        }
+        return students;
+    }
+}
@@ -0,0 +1,80 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PermutationShufflerTest {
+    private static final int LEAF_SIZE = 8;
+
+    private static ForkJoinPool singleThread;
+    private static ForkJoinPool manyThreads;
+
+    @BeforeClass
+    public static void createPools() {
+        singleThread = new ForkJoinPool(1);
+        manyThreads = new ForkJoinPool(8);
+    }
+
+    @AfterClass
+    public static void shutdownPools() {
+        singleThread.shutdown();
+        manyThreads.shutdown();
+    }
+
+    @Test
+    public void sameSeedGivesSamePermutationOnAnyThreadCount() {
+        for (int n : new int[] { 0, 1, 7, 8, 9, 100, 1001, 4096 }) {
+            int[] serial = new PermutationShuffler(42L, singleThread, LEAF_SIZE).permutation(n);
+            int[] parallel = new PermutationShuffler(42L, manyThreads, LEAF_SIZE).permutation(n);
+            assertArrayEquals("n=" + n, serial, parallel);
+        }
+    }
+
+    @Test
+    public void repeatedRunsWithSameSeedAreIdentical() {
+        PermutationShuffler shuffler = new PermutationShuffler(7L, manyThreads, LEAF_SIZE);
+        assertArrayEquals(shuffler.permutation(5000), shuffler.permutation(5000));
+    }
+
+    @Test
+    public void resultIsAPermutation() {
+        int[] values = new PermutationShuffler(3L, manyThreads, LEAF_SIZE).permutation(1000);
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (int i = 0; i < sorted.length; i++) {
+            assertEquals(i, sorted[i]);
+        }
+    }
+
+    @Test
+    public void differentSeedsGiveDifferentPermutations() {
+        int[] first = new PermutationShuffler(1L, manyThreads, LEAF_SIZE).permutation(1000);
+        int[] second = new PermutationShuffler(2L, manyThreads, LEAF_SIZE).permutation(1000);
+        assertFalse(Arrays.equals(first, second));
+    }
+
+    @Test
+    public void shufflesOnlyTheGivenRange() {
+        int[] values = new int[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        new PermutationShuffler(5L, manyThreads, LEAF_SIZE).shuffle(values, 20, 80);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, values[i]);
+            assertEquals(80 + i, values[80 + i]);
+        }
+        int[] middle = Arrays.copyOfRange(values, 20, 80);
+        Arrays.sort(middle);
+        for (int i = 0; i < middle.length; i++) {
+            assertEquals(20 + i, middle[i]);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class RepeatAvoidingTeamServiceTest {
+
+    @Test
+    public void swapDeltaMatchesFullRecount() {
+        RepeatAvoidingTeamService service = serviceWithRounds(60, 6, 3);
+        // Dense ids follow first-seen order, so S<i> has dense id i; -1 is a newcomer
+        int[] ids = new int[64];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i < 60 ? i : -1;
+        }
+        SplittableRandom random = new SplittableRandom(17);
+        RepeatAvoidingTeamService.Search search = service.new Search(ids, 6, random);
+        int repeats = search.countRepeats();
+        assertTrue("history should produce repeats", repeats > 0);
+
+        for (int step = 0; step < 2000; step++) {
+            int i = random.nextInt(ids.length);
+            int j = random.nextInt(ids.length);
+            if (search.teamOf(i) == search.teamOf(j)) {
+                continue;
+            }
+            int before = search.repeatsWith(i, search.teamOf(i), -1);
+            int delta = search.swapDelta(i, j, before);
+            search.swap(i, j);
+            repeats += delta;
+            assertEquals(search.countRepeats(), repeats);
+        }
+    }
+
+    @Test
+    public void trackedRepeatsMatchRecountAfterSearch() {
+        RepeatAvoidingTeamService service = serviceWithRounds(60, 6, 4);
+        int[] ids = new int[60];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = i;
+        }
+        RepeatAvoidingTeamService.Search search = service.new Search(ids, 6, new SplittableRandom(2));
+        search.run(200);
+        assertEquals(search.countRepeats(), search.getRepeats());
+    }
+
+    @Test
+    public void avoidsTeammatesOfAnEarlierRound() {
+        RepeatAvoidingTeamService service = serviceWithRounds(40, 5, 1);
+        service.setSeed(9L);
+        List<List<Student>> teams = service.splitIntoTeams(roster(40), 5);
+
+        assertEquals(8, teams.size());
+        assertEquals(0, service.countRepeats(teams));
+        Set<String> ids = new HashSet<>();
+        for (List<Student> team : teams) {
+            assertEquals(5, team.size());
+            for (Student student : team) {
+                ids.add(student.getId());
+            }
+        }
+        assertEquals(40, ids.size());
+    }
+
+    /**
+     * Service with the given number of random earlier rounds over S0..S(n-1);
+     * the first round lists students in id order so dense ids match indexes
+     */
+    private static RepeatAvoidingTeamService serviceWithRounds(int n, int teamSize, int rounds) {
+        RepeatAvoidingTeamService service = new RepeatAvoidingTeamService();
+        SplittableRandom random = new SplittableRandom(rounds);
+        for (int r = 0; r < rounds; r++) {
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            if (r > 0) {
+                for (int i = n - 1; i > 0; i--) {
+                    int j = random.nextInt(i + 1);
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                }
+            }
+            List<Student> assignments = new ArrayList<>(n);
+            for (int k = 0; k < n; k++) {
+                Student student = new Student("S" + order[k], "", "Name " + order[k], "CSE");
+                student.setTeam("Team_" + (k / teamSize));
+                assignments.add(student);
+            }
+            service.addRound(assignments);
+        }
+        return service;
+    }
+
+    private static List<Student> roster(int n) {
+        List<Student> students = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            students.add(new Student("S" + i, "", "Name " + i, "CSE"));
+        }
+        return students;
+    }
+}
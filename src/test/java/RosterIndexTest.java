@@ -0,0 +1,119 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class RosterIndexTest {
+
+    @Test
+    public void lookupsSurviveGrowthAndRehash() {
+        List<Student> students = new ArrayList<>();
+        RosterIndex index = new RosterIndex(students::add);
+        int count = 5000; // several doublings past the initial capacity
+        for (int i = 0; i < count; i++) {
+            index.accept(new Student("S" + i, "R" + i, "Name " + i, "CSE"));
+        }
+
+        assertEquals(count, index.size());
+        assertEquals(count, students.size());
+        assertFalse(index.hasConflicts());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, index.indexOfId("S" + i));
+            assertEquals(i, index.indexOfRegId("R" + i));
+            assertSame(students.get(i), students.get(index.indexOfId("S" + i)));
+        }
+        assertEquals(-1, index.indexOfId("S" + count));
+        assertEquals(-1, index.indexOfRegId("R" + count));
+    }
+
+    @Test
+    public void identicalRowIsADuplicate() {
+        List<Student> students = new ArrayList<>();
+        RosterIndex index = new RosterIndex(students::add);
+        index.accept(new Student("1", "R1", "Asha", "CSE"));
+        index.accept(new Student("1", "R1", "Asha", "CSE"));
+
+        assertEquals(1, students.size());
+        assertConflict(index, RosterIndex.ConflictType.DUPLICATE_ROW, "1", 0, 2);
+    }
+
+    @Test
+    public void sameIdWithOtherDetailsIsAnIdConflict() {
+        List<Student> students = new ArrayList<>();
+        RosterIndex index = new RosterIndex(students::add);
+        index.accept(new Student("1", "R1", "Asha", "CSE"));
+        index.accept(new Student("2", "R2", "Bala", "ECE"));
+        index.accept(new Student("1", "R1", "Asha", "ECE"));
+
+        assertEquals(2, students.size());
+        assertEquals("CSE", students.get(0).getDept());
+        assertConflict(index, RosterIndex.ConflictType.ID_CONFLICT, "1", 0, 3);
+    }
+
+    @Test
+    public void colorDifferenceIsAnIdConflict() {
+        RosterIndex index = new RosterIndex(student -> {
+        });
+        Student first = new Student("1", "R1", "Asha", "CSE");
+        first.setColor("Red");
+        Student second = new Student("1", "R1", "Asha", "CSE");
+        second.setColor("Blue");
+        index.accept(first);
+        index.accept(second);
+
+        assertConflict(index, RosterIndex.ConflictType.ID_CONFLICT, "1", 0, 2);
+    }
+
+    @Test
+    public void sameRegIdUnderAnotherIdIsARegIdConflict() {
+        List<Student> students = new ArrayList<>();
+        RosterIndex index = new RosterIndex(students::add);
+        index.accept(new Student("1", "R1", "Asha", "CSE"));
+        index.accept(new Student("2", "R1", "Bala", "CSE"));
+
+        assertEquals(1, students.size());
+        assertEquals(-1, index.indexOfId("2"));
+        assertConflict(index, RosterIndex.ConflictType.REG_ID_CONFLICT, "R1", 0, 2);
+    }
+
+    @Test
+    public void emptyRegIdsNeverConflict() {
+        List<Student> students = new ArrayList<>();
+        RosterIndex index = new RosterIndex(students::add);
+        index.accept(new Student("1", "", "Asha", "CSE"));
+        index.accept(new Student("2", "", "Bala", "CSE"));
+
+        assertEquals(2, students.size());
+        assertFalse(index.hasConflicts());
+        assertEquals(-1, index.indexOfRegId(""));
+    }
+
+    @Test
+    public void recordCountIncludesSkippedRows() {
+        RosterIndex index = new RosterIndex(student -> {
+        });
+        index.accept(new Student("1", "R1", "Asha", "CSE"));
+        index.accept(new Student("1", "R1", "Asha", "CSE"));
+        index.accept(new Student("2", "R1", "Bala", "CSE"));
+
+        assertEquals(1, index.size());
+        assertEquals(3, index.getRecordCount());
+        assertTrue(index.hasConflicts());
+        assertEquals(2, index.getConflicts().size());
+    }
+
+    private static void assertConflict(RosterIndex index, RosterIndex.ConflictType type, String key,
+            int firstPosition, int record) {
+        assertEquals(1, index.getConflicts().size());
+        RosterIndex.Conflict conflict = index.getConflicts().get(0);
+        assertEquals(type, conflict.getType());
+        assertEquals(key, conflict.getKey());
+        assertEquals(firstPosition, conflict.getFirstPosition());
+        assertEquals(record, conflict.getRecord());
+    }
+}
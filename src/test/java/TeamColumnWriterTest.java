@@ -0,0 +1,240 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TeamColumnWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final TeamColumnWriter writer = new TeamColumnWriter(RosterSchema.defaults());
+
+    @Test
+    public void addsTeamColumnAfterTheLastColumn() throws IOException {
+        File input = workbook(0, new String[] { "id", "name" }, new String[] { "1", "Asha" },
+                new String[] { "2", "Bala" }, new String[] { "3", "Chitra" });
+        File output = folder.newFile("out.xlsx");
+
+        int rows = writer.write(input.getPath(), null, output.getPath(),
+                Arrays.asList(team("Team_0", "1", "3"), team("Team_1", "2")));
+
+        assertEquals(3, rows);
+        List<List<String>> sheet = read(output);
+        assertEquals(Arrays.asList("id", "name", "Team"), sheet.get(0));
+        assertEquals(Arrays.asList("1", "Asha", "Team_0"), sheet.get(1));
+        assertEquals(Arrays.asList("2", "Bala", "Team_1"), sheet.get(2));
+        assertEquals(Arrays.asList("3", "Chitra", "Team_0"), sheet.get(3));
+    }
+
+    @Test
+    public void updatesAnExistingTeamColumn() throws IOException {
+        File input = workbook(0, new String[] { "Student ID", "Team Name", "Student Name" },
+                new String[] { "1", "Old_A", "Asha" }, new String[] { "2", "Old_B", "Bala" });
+        File output = folder.newFile("out.xlsx");
+
+        int rows = writer.write(input.getPath(), null, output.getPath(), Arrays.asList(team("Team_7", "1")));
+
+        assertEquals(1, rows);
+        List<List<String>> sheet = read(output);
+        assertEquals(Arrays.asList("Student ID", "Team Name", "Student Name"), sheet.get(0));
+        assertEquals(Arrays.asList("1", "Team_7", "Asha"), sheet.get(1));
+        // Students without a team lose the stale value
+        assertEquals(Arrays.asList("2", "", "Bala"), sheet.get(2));
+    }
+
+    @Test
+    public void sheetWithoutHeaderGetsATeamHeaderRow() throws IOException {
+        // Data from row 2 on, in the fixed layout: id, regNo, name, branch
+        File input = workbook(1, new String[] { "1", "R1", "Asha", "CSE" }, new String[] { "2", "R2", "Bala", "ECE" });
+        File output = folder.newFile("out.xlsx");
+
+        int rows = writer.write(input.getPath(), null, output.getPath(), Arrays.asList(team("Team_0", "1", "2")));
+
+        assertEquals(2, rows);
+        List<List<String>> sheet = read(output);
+        assertEquals(Arrays.asList("", "", "", "", "Team"), sheet.get(0));
+        assertEquals(Arrays.asList("1", "R1", "Asha", "CSE", "Team_0"), sheet.get(1));
+        assertEquals(Arrays.asList("2", "R2", "Bala", "ECE", "Team_0"), sheet.get(2));
+    }
+
+    @Test
+    public void cellsWithImplicitReferencesKeepTheirColumns() throws IOException {
+        File input = stripCellReferences(workbook(0, new String[] { "id", "Team", "name" },
+                new String[] { "1", "Old", "Asha" }, new String[] { "2", "Old", "Bala" }));
+        File output = folder.newFile("out.xlsx");
+
+        writer.write(input.getPath(), null, output.getPath(), Arrays.asList(team("Team_0", "2"), team("Team_1", "1")));
+
+        List<List<String>> sheet = read(output);
+        assertEquals(Arrays.asList("id", "Team", "name"), sheet.get(0));
+        assertEquals(Arrays.asList("1", "Team_1", "Asha"), sheet.get(1));
+        assertEquals(Arrays.asList("2", "Team_0", "Bala"), sheet.get(2));
+    }
+
+    @Test
+    public void sheetWithoutDimensionKeepsDataPastTheHeader() throws IOException {
+        File input = editSheet(workbook(0, new String[] { "id", "name" }, new String[] { "1", "Asha", "note" },
+                new String[] { "2", "Bala" }), "<dimension[^>]*/>", "");
+        File output = folder.newFile("out.xlsx");
+
+        writer.write(input.getPath(), null, output.getPath(), Arrays.asList(team("Team_0", "1", "2")));
+
+        List<List<String>> sheet = read(output);
+        assertEquals(Arrays.asList("id", "name", "", "Team"), sheet.get(0));
+        assertEquals(Arrays.asList("1", "Asha", "note", "Team_0"), sheet.get(1));
+        assertEquals(Arrays.asList("2", "Bala", "", "Team_0"), sheet.get(2));
+    }
+
+    @Test
+    public void dataInsideTheNewTeamColumnIsNotOverwritten() throws IOException {
+        // The dimension claims two columns, but a row has a third
+        File input = editSheet(workbook(0, new String[] { "id", "name" }, new String[] { "1", "Asha", "note" }),
+                "<dimension ref=\"[^\"]*\"/>", "<dimension ref=\"A1:B2\"/>");
+        File output = new File(folder.getRoot(), "out.xlsx");
+
+        try {
+            writer.write(input.getPath(), null, output.getPath(), Arrays.asList(team("Team_0", "1")));
+            fail("Expected the write to be refused");
+        } catch (IllegalStateException e) {
+            assertFalse(output.exists());
+        }
+    }
+
+    @Test
+    public void outputReadsBackAsTeamAssignments() throws IOException {
+        File input = workbook(0, new String[] { "id", "name" }, new String[] { "1", "Asha" },
+                new String[] { "2", "Bala" });
+        File output = folder.newFile("out.xlsx");
+        writer.write(input.getPath(), null, output.getPath(), Arrays.asList(team("Team_0", "1"), team("Team_1", "2")));
+
+        List<Student> assignments = new ExcelService().readTeamAssignments(output.getPath());
+
+        assertEquals(2, assignments.size());
+        assertEquals("1", assignments.get(0).getId());
+        assertEquals("Asha", assignments.get(0).getName());
+        assertEquals("Team_0", assignments.get(0).getTeam());
+        assertEquals("2", assignments.get(1).getId());
+        assertEquals("Team_1", assignments.get(1).getTeam());
+        assertNull(assignments.get(1).getAttribute("Team"));
+    }
+
+    private static List<Student> team(String name, String... ids) {
+        List<Student> team = new ArrayList<>();
+        for (String id : ids) {
+            Student student = new Student(id, "", "Student " + id, "");
+            student.setTeam(name);
+            team.add(student);
+        }
+        return team;
+    }
+
+    /**
+     * Workbook with one sheet whose rows start at the given row index
+     */
+    private File workbook(int firstRow, String[]... rows) throws IOException {
+        File file = folder.newFile();
+        try (Workbook workbook = new XSSFWorkbook(); OutputStream out = new FileOutputStream(file)) {
+            Sheet sheet = workbook.createSheet("Students");
+            for (int r = 0; r < rows.length; r++) {
+                Row row = sheet.createRow(firstRow + r);
+                for (int c = 0; c < rows[r].length; c++) {
+                    row.createCell(c).setCellValue(rows[r][c]);
+                }
+            }
+            workbook.write(out);
+        }
+        return file;
+    }
+
+    /**
+     * Copy of a workbook whose cells have no r attribute, so their column
+     * follows from their position in the row
+     */
+    private File stripCellReferences(File input) throws IOException {
+        return editSheet(input, "<c r=\"[A-Z]+[0-9]+\"", "<c");
+    }
+
+    /**
+     * Copy of a workbook with a regex replacement applied to the sheet XML
+     */
+    private File editSheet(File input, String regex, String replacement) throws IOException {
+        File output = folder.newFile();
+        try (ZipFile zip = new ZipFile(input);
+                ZipOutputStream out = new ZipOutputStream(new FileOutputStream(output))) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                byte[] bytes = readAll(zip.getInputStream(entry));
+                if (entry.getName().startsWith("xl/worksheets/")) {
+                    String xml = new String(bytes, StandardCharsets.UTF_8);
+                    bytes = xml.replaceAll(regex, replacement).getBytes(StandardCharsets.UTF_8);
+                }
+                out.write(bytes);
+                out.closeEntry();
+            }
+        }
+        return output;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = stream.read(buffer)) > 0) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Cell text of the first sheet, row by row, with "" for blank cells
+     */
+    private static List<List<String>> read(File file) throws IOException {
+        DataFormatter formatter = new DataFormatter();
+        List<List<String>> rows = new ArrayList<>();
+        try (InputStream in = new FileInputStream(file); Workbook workbook = new XSSFWorkbook(in)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            for (int r = 0; r <= sheet.getLastRowNum(); r++) {
+                Row row = sheet.getRow(r);
+                List<String> cells = new ArrayList<>();
+                if (row != null) {
+                    for (int c = 0; c < row.getLastCellNum(); c++) {
+                        Cell cell = row.getCell(c);
+                        cells.add(cell != null ? formatter.formatCellValue(cell) : "");
+                    }
+                }
+                rows.add(cells);
+            }
+        }
+        return rows;
+    }
+}